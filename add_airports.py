@@ -1,22 +1,51 @@
 import csv
+import io
+import json
 import requests
 
-with open("airports.csv", newline='', encoding='utf-8') as csvfile:
-    reader = csv.DictReader(csvfile)
-    for row in reader:
-        if row['iso_country'] and row['iata_code']:  # Türkiye ve IATA kodu olanlar
-            data = {
-                "name": row['name'],
-                "country": row['iso_country'],
-                "city": row['municipality'],
-                "locationCode": row['iata_code'].lower()
-            }
-            response = requests.post(
-                "http://localhost:8080/api/locations",
-                json=data,
-                headers={
-                    "Content-Type": "application/json",
-                    "Accept": "application/json"
+CHUNK_ROWS = 5000
+
+
+def locations():
+    with open("airports.csv", newline='', encoding='utf-8') as csvfile:
+        reader = csv.DictReader(csvfile)
+        for row in reader:
+            if row['iso_country'] and row['iata_code']:  # Türkiye ve IATA kodu olanlar
+                yield {
+                    "name": row['name'],
+                    "country": row['iso_country'],
+                    "city": row['municipality'],
+                    "locationCode": row['iata_code'].lower()
                 }
-            )
-            print(f"{data['locationCode'].upper()} gönderildi: {response.status_code}")
+
+
+def ndjson_body():
+    # Stream the rows in chunks so the whole file is never held in memory
+    buffer = io.StringIO()
+    count = 0
+    for data in locations():
+        buffer.write(json.dumps(data, ensure_ascii=False))
+        buffer.write("\n")
+        count += 1
+        if count % CHUNK_ROWS == 0:
+            yield buffer.getvalue().encode("utf-8")
+            buffer = io.StringIO()
+    if buffer.tell():
+        yield buffer.getvalue().encode("utf-8")
+
+
+response = requests.post(
+    "http://localhost:8080/api/locations/import",
+    data=ndjson_body(),
+    headers={
+        "Content-Type": "application/x-ndjson",
+        "Accept": "application/json"
+    }
+)
+print(f"Durum: {response.status_code}")
+report = response.json().get("data") or {}
+print(f"Eklenen: {report.get('inserted')}, atlanan: {report.get('skipped')}, "
+      f"çakışan: {report.get('conflicting')}, geçersiz: {report.get('invalid')}, "
+      f"süre: {report.get('durationMillis')} ms")
+for issue in report.get("issues", []):
+    print(f"  satır {issue['row']} {issue['locationCode']}: {issue['reason']}")
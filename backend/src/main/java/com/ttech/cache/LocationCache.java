@@ -0,0 +1,116 @@
+package com.ttech.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ttech.graph.RouteGraph;
+import com.ttech.graph.RouteGraphChange;
+import com.ttech.graph.RouteGraphProvider;
+import com.ttech.model.Location;
+import com.ttech.repository.LocationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+
+/**
+ * Read-through cache of locations by code and by id. It is warmed from the route graph at startup and
+ * kept current from the committed {@link RouteGraphChange}s the services publish. Unknown codes and ids
+ * are not cached, so a location shows up as soon as it is created.
+ * Cached instances are shared between requests and must not be modified.
+ */
+@Component
+public class LocationCache {
+
+    private static final long MAXIMUM_SIZE = 100_000;
+
+    private final LocationRepository locationRepository;
+    private final RouteGraphProvider routeGraphProvider;
+    private final Cache<String, Location> byCode;
+    private final Cache<Long, Location> byId;
+
+    public LocationCache(LocationRepository locationRepository, RouteGraphProvider routeGraphProvider,
+                         MeterRegistry meterRegistry) {
+        this.locationRepository = locationRepository;
+        this.routeGraphProvider = routeGraphProvider;
+        this.byCode = Caffeine.newBuilder().maximumSize(MAXIMUM_SIZE).recordStats().build();
+        this.byId = Caffeine.newBuilder().maximumSize(MAXIMUM_SIZE).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byCode, "locationByCode");
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "locationById");
+        registerHitRatio(meterRegistry, byCode, "locationByCode");
+        registerHitRatio(meterRegistry, byId, "locationById");
+    }
+
+    /**
+     * Returns the location with the given code, or null when there is none.
+     */
+    public Location findByCode(String locationCode) {
+        if (locationCode == null) {
+            return null;
+        }
+        return byCode.get(locationCode, code -> {
+            Location location = locationRepository.findByLocationCode(code);
+            if (location != null) {
+                byId.put(location.getId(), location);
+            }
+            return location;
+        });
+    }
+
+    public Optional<Location> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byId.get(id, key -> {
+            Location location = locationRepository.findById(key).orElse(null);
+            if (location != null) {
+                byCode.put(location.getLocationCode(), location);
+            }
+            return location;
+        }));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        RouteGraph graph = routeGraphProvider.current();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            put(graph.location(node));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationSaved(RouteGraphChange.LocationSaved change) {
+        evict(change.location().getId());
+        put(change.location());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationDeleted(RouteGraphChange.LocationDeleted change) {
+        evict(change.locationId());
+    }
+
+    private void put(Location location) {
+        byId.put(location.getId(), location);
+        byCode.put(location.getLocationCode(), location);
+    }
+
+    // Drops the id entry and the code it was cached under, which an update may have changed
+    private void evict(long id) {
+        Location previous = byId.getIfPresent(id);
+        byId.invalidate(id);
+        if (previous != null) {
+            byCode.invalidate(previous.getLocationCode());
+        }
+    }
+
+    private static void registerHitRatio(MeterRegistry meterRegistry, Cache<?, ?> cache, String name) {
+        Gauge.builder("location.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of location lookups answered without a database query")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+}
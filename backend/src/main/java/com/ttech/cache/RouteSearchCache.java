@@ -0,0 +1,102 @@
+package com.ttech.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ttech.config.RouteSearchProperties;
+import com.ttech.dto.requests.RouteSort;
+import com.ttech.graph.AffectedRoutes;
+import com.ttech.graph.RouteGraph;
+import com.ttech.graph.RouteGraphUpdatedEvent;
+import com.ttech.model.Transportation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded W-TinyLFU cache of route search results keyed by origin, destination, weekday, ranking
+ * and graph version. Entries also expire once unused for {@code route.search.cache.expire-after-access}.
+ * When a new graph is published, entries the update cannot have affected are re-keyed to the new
+ * version and everything else is dropped.
+ */
+@Component
+public class RouteSearchCache {
+
+    private final Cache<Key, List<List<Transportation>>> cache;
+    private final Counter invalidations;
+
+    public RouteSearchCache(RouteSearchProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getCache().getMaximumWeight())
+                .weigher((Key key, List<List<Transportation>> routes) -> 1 + legCount(routes))
+                // Empty and small results weigh almost nothing, so idle ones are also dropped by age
+                .expireAfterAccess(properties.getCache().getExpireAfterAccess())
+                .recordStats()
+                .build();
+        this.invalidations = Counter.builder("route.search.cache.invalidations")
+                .description("Cached route searches dropped because a network change could affect them")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "routeSearch");
+    }
+
+    /**
+     * Returns the cached routes for the search, computing them at most once per key even when
+     * several requests miss concurrently.
+     */
+    public List<List<Transportation>> get(RouteGraph graph, String originCode, String destinationCode,
+                                          DayOfWeek dayOfWeek, RouteSort sort, Integer limit,
+                                          Supplier<List<List<Transportation>>> search) {
+        Key key = new Key(originCode, destinationCode, dayOfWeek, sort, limit, graph.getVersion());
+        return cache.get(key, k -> List.copyOf(search.get()));
+    }
+
+    /**
+     * Returns the cached routes for the search, or null without computing them when they are not cached.
+     */
+    public List<List<Transportation>> getIfPresent(RouteGraph graph, String originCode, String destinationCode,
+                                                   DayOfWeek dayOfWeek, RouteSort sort, Integer limit) {
+        return cache.getIfPresent(new Key(originCode, destinationCode, dayOfWeek, sort, limit, graph.getVersion()));
+    }
+
+    @EventListener
+    public void onGraphUpdated(RouteGraphUpdatedEvent event) {
+        AffectedRoutes affected = AffectedRoutes.of(event);
+        long previousVersion = event.previous() != null ? event.previous().getVersion() : -1;
+        long currentVersion = event.current().getVersion();
+
+        for (Map.Entry<Key, List<List<Transportation>>> entry : Map.copyOf(cache.asMap()).entrySet()) {
+            Key key = entry.getKey();
+            if (key.graphVersion() == currentVersion) {
+                continue;
+            }
+            cache.invalidate(key);
+            if (key.graphVersion() != previousVersion || affected.affects(key.originCode(), key.destinationCode())) {
+                invalidations.increment();
+            } else {
+                cache.put(key.withGraphVersion(currentVersion), entry.getValue());
+            }
+        }
+    }
+
+    private static int legCount(List<List<Transportation>> routes) {
+        int legs = 0;
+        for (List<Transportation> route : routes) {
+            legs += route.size();
+        }
+        return legs;
+    }
+
+    private record Key(String originCode, String destinationCode, DayOfWeek dayOfWeek, RouteSort sort,
+                       Integer limit, long graphVersion) {
+
+        Key withGraphVersion(long version) {
+            return new Key(originCode, destinationCode, dayOfWeek, sort, limit, version);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.ttech.config;
+
+import com.ttech.datasource.ConcurrencyLimitedDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceConcurrencyConfig {
+
+    // Static and lazily bound, so registering the post-processor does not initialize anything early
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(
+            ObjectProvider<DatabaseConcurrencyProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitedDataSource) {
+                    return bean;
+                }
+                DatabaseConcurrencyProperties limits = properties.getObject();
+                if (limits.getMaxConcurrency() <= 0) {
+                    return bean;
+                }
+                return new ConcurrencyLimitedDataSource(dataSource, limits.getMaxConcurrency(),
+                        limits.getAcquireTimeout());
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder databaseConcurrencyMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .filter(ConcurrencyLimitedDataSource.class::isInstance)
+                .map(ConcurrencyLimitedDataSource.class::cast)
+                .findFirst()
+                .ifPresent(dataSource -> {
+                    Gauge.builder("database.concurrency.available", dataSource,
+                                    ConcurrencyLimitedDataSource::availablePermits)
+                            .description("Database permits not currently held")
+                            .register(registry);
+                    Gauge.builder("database.concurrency.waiting", dataSource,
+                                    ConcurrencyLimitedDataSource::waitingThreads)
+                            .description("Threads waiting for a database permit")
+                            .register(registry);
+                });
+    }
+}
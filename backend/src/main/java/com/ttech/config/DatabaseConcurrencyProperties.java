@@ -0,0 +1,15 @@
+package com.ttech.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "database.concurrency")
+public class DatabaseConcurrencyProperties {
+    // Threads allowed to hold or wait for a pooled connection at once; 0 leaves the data source unwrapped
+    private int maxConcurrency = 0;
+    // How long a thread waits for a permit before the connection request fails
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+}
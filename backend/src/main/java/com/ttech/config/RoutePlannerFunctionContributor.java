@@ -0,0 +1,23 @@
+package com.ttech.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the SQL functions used by the JPA specifications. Loaded through
+ * {@code META-INF/services/org.hibernate.boot.model.FunctionContributor}.
+ */
+public class RoutePlannerFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Boolean> booleanType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.BOOLEAN);
+
+        // Containment of a single element, written as @> so a GIN index on the array applies
+        functionContributions.getFunctionRegistry().registerPattern("array_has", "(?1@>array[?2])", booleanType);
+    }
+}
@@ -0,0 +1,53 @@
+package com.ttech.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class RouteSearchExecutorConfig {
+
+    // Bounded pool for batch route searches; a full queue makes the submitting thread run the search itself
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor routeSearchExecutor(RouteSearchProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getBatch().getParallelism());
+        executor.setMaxPoolSize(properties.getBatch().getParallelism());
+        executor.setQueueCapacity(properties.getBatch().getQueueCapacity());
+        executor.setThreadNamePrefix("route-search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // With spring.threads.virtual.enabled every search gets its own virtual thread. Searches are CPU
+    // bound, so the concurrency limit keeps the fan-out at the same width as the platform pool and makes
+    // the submitting thread wait instead of queueing without bound.
+    @Bean(name = "routeSearchExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualRouteSearchExecutor(RouteSearchProperties properties) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("route-search-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(properties.getBatch().getParallelism());
+        return executor;
+    }
+
+    // Splits single searches from high fan-out origins; separate from the batch pool so they never wait behind it
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool routeSearchForkJoinPool(RouteSearchProperties properties) {
+        return new ForkJoinPool(properties.getParallel().getParallelism());
+    }
+
+    // Builds the route index across origins, apart from the pools serving searches
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool routeIndexForkJoinPool(RouteSearchProperties properties) {
+        return new ForkJoinPool(properties.getIndex().getParallelism());
+    }
+}
@@ -0,0 +1,85 @@
+package com.ttech.config;
+
+import com.ttech.model.Transportation.TransportationType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "route.search")
+public class RouteSearchProperties {
+
+    private final Cache cache = new Cache();
+    private final Batch batch = new Batch();
+    private final Ranking ranking = new Ranking();
+    private final Parallel parallel = new Parallel();
+    private final Schedule schedule = new Schedule();
+    private final DateRange dateRange = new DateRange();
+    private final Index index = new Index();
+    private final Snapshot snapshot = new Snapshot();
+
+    @Data
+    public static class Cache {
+        // Total number of cached route legs (plus one per entry) before eviction
+        private long maximumWeight = 500_000;
+        // Drops entries not read for this long, however little they weigh
+        private Duration expireAfterAccess = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Batch {
+        private int maxSize = 500;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = 1_000;
+    }
+
+    @Data
+    public static class Parallel {
+        // Estimated legs scanned from the origin above which one search is split across threads; 0 disables it
+        private long fanOutThreshold = 20_000;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    @Data
+    public static class Schedule {
+        // Minutes needed to change legs at a location that does not set its own minimum
+        private int minConnectionMinutes = 30;
+    }
+
+    @Data
+    public static class Index {
+        // Precomputes every route per weekday in the background and answers unsorted searches from it
+        private boolean enabled = true;
+        // Routes the index may hold, at 24 bytes each; a larger network is searched without an index
+        private long maxRoutes = 5_000_000;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    @Data
+    public static class Snapshot {
+        // Saves the route graph after database loads and updates, and starts from it while the network is unchanged
+        private boolean enabled = true;
+        private Path path = Path.of("data", "route-graph.snapshot");
+        // Incremental updates rewrite the snapshot this long after they were applied
+        private Duration rewriteDelay = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class DateRange {
+        private int maxDays = 62;
+    }
+
+    @Data
+    public static class Ranking {
+        // Cost of one leg of each type when routes are sorted by cost; missing types cost 1
+        private Map<TransportationType, Integer> legCost = new EnumMap<>(Map.of(
+                TransportationType.FLIGHT, 10,
+                TransportationType.BUS, 2,
+                TransportationType.SUBWAY, 1,
+                TransportationType.UBER, 4));
+    }
+}
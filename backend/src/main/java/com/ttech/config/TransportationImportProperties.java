@@ -0,0 +1,15 @@
+package com.ttech.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Data
+@ConfigurationProperties(prefix = "transportation.import")
+public class TransportationImportProperties {
+    // Spooled uploads and job state live here, so unfinished jobs can resume after a restart
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "transportation-imports");
+    // Rows written per transaction; a resumed job restarts at the first uncommitted chunk
+    private int chunkSize = 5_000;
+}
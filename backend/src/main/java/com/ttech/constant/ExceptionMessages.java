@@ -22,4 +22,34 @@ public final class ExceptionMessages {
     public static final String TRANSPORTATION_NOT_FOUND = "Transportation not found with id: %d";
     public static final String INVALID_ORIGIN_LOCATION = "Invalid originLocationCode: %s";
     public static final String INVALID_DESTINATION_LOCATION = "Invalid destinationLocationCode: %s";
+    public static final String INCOMPLETE_SCHEDULE = "departureTime and arrivalTime must be given together.";
+
+    // Pagination Messages
+    public static final String INVALID_CURSOR = "Invalid cursor. A cursor can only be used with the sort it was issued for.";
+
+    // Route Search Messages
+    public static final String ROUTE_BATCH_TOO_LARGE = "A batch may contain at most %d route searches.";
+    public static final String INVALID_ROUTE_LIMIT = "Invalid limit: %d. Limit must be at least 1.";
+    public static final String SORTED_STREAM_WITHOUT_LIMIT = "A streamed search sorted by %s requires a limit.";
+    public static final String DATE_RANGE_REQUIRED = "dateFrom and dateTo are required.";
+    public static final String INVALID_DATE_RANGE = "Invalid date range: dateFrom %s is after dateTo %s.";
+    public static final String DATE_RANGE_TOO_LONG = "A date range may cover at most %d days.";
+
+    // Location Import Messages
+    public static final String IMPORT_MISSING_COLUMNS = "CSV header must contain the columns name, country, city and locationCode.";
+    public static final String IMPORT_INVALID_JSON = "Invalid JSON: %s";
+    public static final String IMPORT_FIELD_TOO_LONG = "%s: must be at most %d characters";
+    public static final String IMPORT_DUPLICATE_ROW = "Location code appears in row %d with different data";
+    public static final String IMPORT_CODE_EXISTS = "Location code already exists with different data: %s";
+    public static final String IMPORT_CODE_TAKEN_CONCURRENTLY = "Location code was created by another request during the import: %s";
+
+    // Transportation Import Messages
+    public static final String IMPORT_MISSING_TRANSPORTATION_COLUMNS = "CSV header must contain the columns originLocationCode, destinationLocationCode and transportationType.";
+    public static final String IMPORT_INVALID_TRANSPORTATION_TYPE = "Invalid transportationType: %s";
+    public static final String IMPORT_INVALID_OPERATING_DAYS = "Invalid operatingDays: %s";
+    public static final String IMPORT_INVALID_TIME = "Invalid %s: %s";
+    public static final String IMPORT_MISSING_FIELDS = "originLocationCode, destinationLocationCode and transportationType are required";
+    public static final String IMPORT_UNKNOWN_LOCATION = "Unknown location code: %s";
+    public static final String IMPORT_JOB_NOT_FOUND = "Import job not found with id: %s";
+    public static final String IMPORT_JOB_NOT_RESUMABLE = "Import job %s is %s and cannot be resumed.";
 }
\ No newline at end of file
@@ -1,8 +1,12 @@
 package com.ttech.controller;
 
+import com.ttech.dto.requests.TotalCount;
 import com.ttech.dto.responses.ApiResponse;
+import com.ttech.dto.responses.CursorPage;
+import com.ttech.dto.responses.LocationImportReport;
 import com.ttech.model.Location;
 import com.ttech.model.Location.SortBy;
+import com.ttech.service.LocationImportService;
 import com.ttech.service.LocationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,10 +16,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/api/locations")
@@ -24,6 +34,7 @@ import org.springframework.web.bind.annotation.*;
 public class LocationController {
 
     private final LocationService locationService;
+    private final LocationImportService locationImportService;
 
     @GetMapping
     @Operation(summary = "Get all locations with pagination and search")
@@ -39,6 +50,31 @@ public class LocationController {
         return ResponseEntity.ok(ApiResponse.success(locations));
     }
 
+    @GetMapping("/scroll")
+    @Operation(summary = "Get locations by cursor",
+            description = "Keyset pagination: pass the returned nextCursor to get the following page. "
+                    + "No count query runs unless total is estimated or exact.")
+    public ResponseEntity<ApiResponse<CursorPage<Location>>> scrollLocations(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") SortBy sortBy,
+            @RequestParam(defaultValue = "ASC") Sort.Direction sortOrder,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "none") TotalCount total) {
+        CursorPage<Location> locations = locationService.scrollLocations(search, sortBy, sortOrder, size, cursor, total);
+        return ResponseEntity.ok(ApiResponse.success(locations));
+    }
+
+    @GetMapping("/autocomplete")
+    @Operation(summary = "Autocomplete locations by code, name or city",
+            description = "Exact location code matches come first, then code prefixes, words and word prefixes, "
+                    + "then matches inside a word. At most 50 results are returned.")
+    public ResponseEntity<ApiResponse<List<Location>>> autocompleteLocations(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(ApiResponse.success(locationService.autocomplete(query, limit)));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get location by ID")
     public ResponseEntity<ApiResponse<Location>> getLocationById(@PathVariable Long id) {
@@ -53,6 +89,17 @@ public class LocationController {
         return ResponseEntity.status(HttpStatus.CREATED).body(ApiResponse.success(savedLocation));
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Bulk import locations",
+            description = "Accepts CSV with name, country, city and locationCode columns, or one JSON location "
+                    + "per line. Existing location codes are never overwritten.")
+    public ResponseEntity<ApiResponse<LocationImportReport>> importLocations(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        LocationImportReport report = locationImportService.importLocations(body, contentType);
+        return ResponseEntity.ok(ApiResponse.success(report));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update an existing location")
     public ResponseEntity<ApiResponse<Location>> updateLocation(
@@ -1,30 +1,172 @@
 package com.ttech.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ttech.constant.ExceptionMessages;
 import com.ttech.dto.responses.ApiResponse;
+import com.ttech.dto.requests.DebugOption;
+import com.ttech.dto.requests.ReachabilityRequest;
 import com.ttech.dto.requests.RouteSearchRequest;
+import com.ttech.dto.requests.RouteView;
+import com.ttech.dto.responses.CompactRouteResponse;
+import com.ttech.dto.responses.Itinerary;
+import com.ttech.dto.responses.ReachableDestination;
+import com.ttech.metrics.SearchTrace;
 import com.ttech.model.Transportation;
 import com.ttech.service.RouteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/routes")
 @Tag(name = "Route Management", description = "APIs for finding routes between locations")
 public class RouteController {
 
+    // The first route is flushed at once, later ones in groups to keep the number of writes down
+    private static final int STREAM_FLUSH_INTERVAL = 64;
+
     @Autowired
     private RouteService routeService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping("/search")
-    @Operation(summary = "Find valid routes between two locations")
-    public ResponseEntity<ApiResponse<List<List<Transportation>>>> findRoutes(@Valid @ModelAttribute RouteSearchRequest request) {
-        List<List<Transportation>> routes = routeService.findValidRoutes(request);
-        return ResponseEntity.ok(ApiResponse.success(routes));
+    @Operation(summary = "Find valid routes between two locations",
+            description = "With debug=timing the response also breaks down where the search spent its time")
+    public ResponseEntity<ApiResponse<Object>> findRoutes(@Valid @ModelAttribute RouteSearchRequest request,
+            @RequestParam(defaultValue = "full") RouteView view,
+            @RequestParam(required = false) DebugOption debug) {
+        if (debug != DebugOption.timing) {
+            List<List<Transportation>> routes = routeService.findValidRoutes(request);
+            return ResponseEntity.ok(ApiResponse.success(render(routes, view)));
+        }
+        SearchTrace trace = new SearchTrace(true);
+        List<List<Transportation>> routes = routeService.findValidRoutes(request, trace);
+        ApiResponse<Object> response = ApiResponse.success(render(routes, view));
+        response.setTiming(trace.toBreakdown());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/search/range")
+    @Operation(summary = "Find valid routes for every date in a range",
+            description = "Returns the routes per date from dateFrom to dateTo; each weekday is searched only once")
+    public ResponseEntity<ApiResponse<Map<LocalDate, Object>>> findRoutesByDate(
+            @Valid @ModelAttribute RouteSearchRequest request,
+            @RequestParam(defaultValue = "full") RouteView view) {
+        Map<LocalDate, List<List<Transportation>>> routes = routeService.findValidRoutesByDate(request);
+        // Dates on the same weekday share one result, so each is rendered once
+        Map<List<List<Transportation>>, Object> rendered = new IdentityHashMap<>();
+        Map<LocalDate, Object> byDate = new LinkedHashMap<>();
+        routes.forEach((date, dayRoutes) ->
+                byDate.put(date, rendered.computeIfAbsent(dayRoutes, found -> render(found, view))));
+        return ResponseEntity.ok(ApiResponse.success(byDate));
+    }
+
+    @GetMapping("/reachable")
+    @Operation(summary = "Find every location reachable from an origin",
+            description = "Returns each reachable location with its number of valid routes and fewest legs")
+    public ResponseEntity<ApiResponse<List<ReachableDestination>>> findReachableDestinations(
+            @Valid @ModelAttribute ReachabilityRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(routeService.findReachableDestinations(request)));
+    }
+
+    @GetMapping("/schedule")
+    @Operation(summary = "Find scheduled routes between two locations",
+            description = "Returns the earliest arrival first, then each itinerary with fewer legs that arrives later. "
+                    + "Only transportations with departure and arrival times are used")
+    public ResponseEntity<ApiResponse<List<Itinerary>>> findScheduledRoutes(
+            @Valid @ModelAttribute RouteSearchRequest request,
+            @RequestParam(required = false) DebugOption debug) {
+        SearchTrace trace = new SearchTrace(debug == DebugOption.timing);
+        ApiResponse<List<Itinerary>> response = ApiResponse.success(routeService.findScheduledRoutes(request, trace));
+        if (debug == DebugOption.timing) {
+            response.setTiming(trace.toBreakdown());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/search/stream")
+    @Operation(summary = "Stream valid routes between two locations",
+            description = "Writes one route per line as newline-delimited JSON while the search runs. "
+                    + "A sorted stream requires a limit")
+    public ResponseEntity<StreamingResponseBody> streamRoutes(@Valid @ModelAttribute RouteSearchRequest request) {
+        // Validation errors surface here, before the response is committed
+        RouteService.RouteStream routes = routeService.streamValidRoutes(request);
+
+        // Writes block while the client is not reading, which pauses the search with them
+        StreamingResponseBody body = outputStream -> {
+            int[] written = {0};
+            try {
+                routes.forEach(route -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(route));
+                        outputStream.write('\n');
+                        if (++written[0] % STREAM_FLUSH_INTERVAL == 1) {
+                            outputStream.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @PostMapping("/search/batch")
+    @Operation(summary = "Find valid routes for several location pairs",
+            description = "Streams a JSON array with one response per search, in request order")
+    public ResponseEntity<StreamingResponseBody> findRoutesBatch(@RequestBody List<RouteSearchRequest> requests,
+            @RequestParam(defaultValue = "full") RouteView view) {
+        List<CompletableFuture<List<List<Transportation>>>> results = routeService.findValidRoutes(requests);
+
+        StreamingResponseBody body = outputStream -> {
+            outputStream.write('[');
+            for (int i = 0; i < results.size(); i++) {
+                if (i > 0) {
+                    outputStream.write(',');
+                }
+                outputStream.write(objectMapper.writeValueAsBytes(toResponse(results.get(i), view)));
+                outputStream.flush();
+            }
+            outputStream.write(']');
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private Object render(List<List<Transportation>> routes, RouteView view) {
+        return view == RouteView.compact ? CompactRouteResponse.from(routes) : routes;
+    }
+
+    private ApiResponse<Object> toResponse(CompletableFuture<List<List<Transportation>>> result, RouteView view) {
+        try {
+            return ApiResponse.success(render(result.join(), view));
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ResponseStatusException statusException) {
+                return ApiResponse.error(statusException.getReason());
+            }
+            return ApiResponse.error(String.format(ExceptionMessages.UNEXPECTED_ERROR, cause.getMessage()));
+        }
     }
-} 
\ No newline at end of file
+}
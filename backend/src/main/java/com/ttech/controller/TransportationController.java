@@ -1,8 +1,12 @@
 package com.ttech.controller;
 
+import com.ttech.dto.requests.TotalCount;
 import com.ttech.dto.responses.ApiResponse;
+import com.ttech.dto.responses.CursorPage;
+import com.ttech.dto.responses.TransportationImportJob;
 import com.ttech.dto.requests.TransportationFilterRequest;
 import com.ttech.model.Transportation;
+import com.ttech.service.TransportationImportService;
 import com.ttech.service.TransportationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,9 +15,17 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 
 @RestController
 @RequestMapping("/api/transportations")
@@ -22,6 +34,7 @@ import org.springframework.web.bind.annotation.*;
 public class TransportationController {
 
     private final TransportationService transportationService;
+    private final TransportationImportService transportationImportService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<Page<Transportation>>> getAllTransportations(
@@ -37,6 +50,21 @@ public class TransportationController {
         }
     }
 
+    @GetMapping("/scroll")
+    @Operation(summary = "Get transportations by cursor",
+            description = "Keyset pagination in id order: pass the returned nextCursor to get the following page. "
+                    + "No count query runs unless total is estimated or exact.")
+    public ResponseEntity<ApiResponse<CursorPage<Transportation>>> scrollTransportations(
+            @Valid @ModelAttribute TransportationFilterRequest filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "ASC") Sort.Direction sortOrder,
+            @RequestParam(defaultValue = "none") TotalCount total) {
+        CursorPage<Transportation> results =
+                transportationService.scrollTransportations(filter, sortOrder, size, cursor, total);
+        return ResponseEntity.ok(ApiResponse.success(results));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get transportation by ID")
     public ResponseEntity<ApiResponse<Transportation>> getById(@PathVariable Long id) {
@@ -51,12 +79,41 @@ public class TransportationController {
         try {
             Transportation created = transportationService.createTransportation(transportation);
             return ResponseEntity.status(HttpStatus.CREATED).body(ApiResponse.success(created));
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ApiResponse.error("An error occurred while creating the transportation"));
         }
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Start a bulk transportation upsert",
+            description = "Accepts CSV or NDJSON rows with originLocationCode, destinationLocationCode, "
+                    + "transportationType, operatingDays and optionally departureTime and arrivalTime. Rows "
+                    + "matching an existing origin, destination, type and departure time update its operating "
+                    + "days and arrival time. The import runs in the background.")
+    public ResponseEntity<ApiResponse<TransportationImportJob>> importTransportations(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        TransportationImportJob job = transportationImportService.start(body, contentType);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/transportations/import/" + job.getId()))
+                .body(ApiResponse.success(job));
+    }
+
+    @GetMapping("/import/{id}")
+    @Operation(summary = "Get the progress of a bulk transportation upsert")
+    public ResponseEntity<ApiResponse<TransportationImportJob>> getImportJob(@PathVariable String id) {
+        return ResponseEntity.ok(ApiResponse.success(transportationImportService.getJob(id)));
+    }
+
+    @PostMapping("/import/{id}/resume")
+    @Operation(summary = "Resume a failed bulk transportation upsert after its last committed chunk")
+    public ResponseEntity<ApiResponse<TransportationImportJob>> resumeImportJob(@PathVariable String id) {
+        return ResponseEntity.accepted().body(ApiResponse.success(transportationImportService.resume(id)));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update an existing transportation")
     public ResponseEntity<ApiResponse<Transportation>> updateTransportation(@PathVariable Long id,
@@ -64,6 +121,9 @@ public class TransportationController {
         try {
             Transportation updated = transportationService.updateTransportation(id, details);
             return ResponseEntity.ok(ApiResponse.success(updated));
+        } catch (ResponseStatusException e) {
+            // Invalid schedules keep their status, see GlobalExceptionHandler
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
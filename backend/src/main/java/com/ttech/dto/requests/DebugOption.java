@@ -0,0 +1,5 @@
+package com.ttech.dto.requests;
+
+public enum DebugOption {
+    timing
+}
@@ -0,0 +1,14 @@
+package com.ttech.dto.requests;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class ReachabilityRequest {
+    @NotBlank(message = "Origin location code is required")
+    private String originLocationCode;
+
+    private LocalDate date; // Optional, today when missing
+}
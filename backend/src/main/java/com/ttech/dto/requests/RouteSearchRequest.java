@@ -1,9 +1,12 @@
 package com.ttech.dto.requests;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 
 @Data
 public class RouteSearchRequest {
@@ -15,6 +18,21 @@ public class RouteSearchRequest {
 
     private LocalDate date; // Optional date field
 
+    private LocalDate dateFrom; // First date of a date-range search, inclusive
+
+    private LocalDate dateTo; // Last date of a date-range search, inclusive
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    private Integer limit; // Optional, returns only the first routes
+
+    private RouteSort sort; // Optional, search order when missing
+
+    @DateTimeFormat(pattern = "HH:mm")
+    private LocalTime departureTime; // Optional, scheduled searches leave no earlier; start of the day when missing
+
+    @Min(value = 0, message = "Minimum connection time cannot be negative")
+    private Integer minConnectionMinutes; // Optional, raises the minimum connection time of every location
+
     public RouteSearchRequest() {
     }
 
@@ -0,0 +1,9 @@
+package com.ttech.dto.requests;
+
+/**
+ * Ranking of route search results: {@code legs} puts routes with fewer legs first, {@code cost} sums
+ * the configured cost of each leg's transportation type. Equal routes keep their search order.
+ */
+public enum RouteSort {
+    legs, cost
+}
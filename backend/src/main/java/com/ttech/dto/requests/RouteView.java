@@ -0,0 +1,9 @@
+package com.ttech.dto.requests;
+
+/**
+ * Response shape of route searches: {@code full} nests complete transportations and locations in
+ * every route, {@code compact} returns each location and leg once and routes as leg indices.
+ */
+public enum RouteView {
+    full, compact
+}
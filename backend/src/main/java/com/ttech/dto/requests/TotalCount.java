@@ -0,0 +1,13 @@
+package com.ttech.dto.requests;
+
+/**
+ * How a cursor page reports the total number of matching rows.
+ */
+public enum TotalCount {
+    /** No total, so no count query runs. */
+    none,
+    /** The planner's row estimate for unfiltered listings; filtered listings fall back to an exact count. */
+    estimated,
+    /** An exact {@code COUNT(*)} over the matching rows. */
+    exact
+}
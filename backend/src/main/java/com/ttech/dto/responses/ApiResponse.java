@@ -1,5 +1,6 @@
 package com.ttech.dto.responses;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,16 +12,19 @@ public class ApiResponse<T> {
     private boolean success;
     private String message;
     private T data;
+    // Only present when the caller asked for debug=timing
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private TimingBreakdown timing;
 
     public static <T> ApiResponse<T> success(T data) {
-        return new ApiResponse<>(true, "Success", data);
+        return new ApiResponse<>(true, "Success", data, null);
     }
 
     public static <T> ApiResponse<T> error(String message) {
-        return new ApiResponse<>(false, message, null);
+        return new ApiResponse<>(false, message, null, null);
     }
 
     public static ApiResponse<Void> successVoid() {
-        return new ApiResponse<>(true, "Success", null);
+        return new ApiResponse<>(true, "Success", null, null);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.ttech.dto.responses;
+
+import com.ttech.model.Location;
+import com.ttech.model.Transportation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Normalized route search result: every location and leg appears once and each route is a list of
+ * indices into {@code legs}, so busy hubs are not serialized again for every route they appear in.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactRouteResponse {
+    private Map<String, Location> locations;
+    private List<Leg> legs;
+    private List<int[]> routes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Leg {
+        private Long id;
+        private String origin;
+        private String destination;
+        private Transportation.TransportationType transportationType;
+        private List<Integer> operatingDays;
+        // Null for unscheduled legs, as on Transportation
+        private LocalTime departureTime;
+        private LocalTime arrivalTime;
+    }
+
+    public static CompactRouteResponse from(List<List<Transportation>> routes) {
+        Map<String, Location> locations = new LinkedHashMap<>();
+        List<Leg> legs = new ArrayList<>();
+        Map<Long, Integer> legIndexes = new HashMap<>();
+        List<int[]> compactRoutes = new ArrayList<>(routes.size());
+
+        for (List<Transportation> route : routes) {
+            int[] compactRoute = new int[route.size()];
+            for (int i = 0; i < route.size(); i++) {
+                Transportation transportation = route.get(i);
+                compactRoute[i] = legIndexes.computeIfAbsent(transportation.getId(), id -> {
+                    Location origin = transportation.getOriginLocation();
+                    Location destination = transportation.getDestinationLocation();
+                    locations.putIfAbsent(origin.getLocationCode(), origin);
+                    locations.putIfAbsent(destination.getLocationCode(), destination);
+                    legs.add(new Leg(id, origin.getLocationCode(), destination.getLocationCode(),
+                            transportation.getTransportationType(), transportation.getOperatingDays(),
+                            transportation.getDepartureTime(), transportation.getArrivalTime()));
+                    return legs.size() - 1;
+                });
+            }
+            compactRoutes.add(compactRoute);
+        }
+        return new CompactRouteResponse(locations, legs, compactRoutes);
+    }
+}
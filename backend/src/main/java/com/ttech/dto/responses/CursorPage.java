@@ -0,0 +1,29 @@
+package com.ttech.dto.responses;
+
+import com.ttech.pagination.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    // Pass back as the cursor parameter to fetch the following page
+    private String nextCursor;
+    // Null unless a total was requested
+    private Long totalElements;
+
+    public static <T> CursorPage<T> of(Window<T> window, Long totalElements) {
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? KeysetCursor.encode(window.positionAt(window.size() - 1))
+                : null;
+        return new CursorPage<>(window.getContent(), window.size(), nextCursor != null, nextCursor, totalElements);
+    }
+}
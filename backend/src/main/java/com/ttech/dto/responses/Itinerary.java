@@ -0,0 +1,22 @@
+package com.ttech.dto.responses;
+
+import com.ttech.model.Transportation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A scheduled route: its legs with the departure of the first and the arrival of the last one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Itinerary {
+    private List<Transportation> legs;
+    private LocalDateTime departure;
+    private LocalDateTime arrival;
+    private long durationMinutes;
+}
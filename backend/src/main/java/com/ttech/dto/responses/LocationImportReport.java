@@ -0,0 +1,33 @@
+package com.ttech.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk location import. Rows whose code already exists with the same data are
+ * {@code skipped}; rows whose code exists with different data are {@code conflicting} and never
+ * overwrite it. Only the first rejected rows are listed in {@code issues}.
+ */
+@Data
+@NoArgsConstructor
+public class LocationImportReport {
+    private int inserted;
+    private int skipped;
+    private int conflicting;
+    private int invalid;
+    private long durationMillis;
+    private List<Issue> issues = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Issue {
+        private long row;
+        private String locationCode;
+        private String reason;
+    }
+}
@@ -0,0 +1,19 @@
+package com.ttech.dto.responses;
+
+import com.ttech.model.Location;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A location reachable from the origin, with the number of valid routes to it and the fewest legs
+ * among them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReachableDestination {
+    private Location location;
+    private long routeCount;
+    private int minLegs;
+}
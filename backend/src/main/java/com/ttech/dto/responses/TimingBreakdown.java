@@ -0,0 +1,24 @@
+package com.ttech.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Where the time of one route search went, returned with {@code debug=timing}. Traversal excludes the
+ * time spent materializing and filtering routes, which is reported as {@code filterMillis}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimingBreakdown {
+    private double resolveMillis;
+    private double traverseMillis;
+    private double filterMillis;
+    private double totalMillis;
+    private boolean cacheHit;
+    private long nodesExpanded;
+    private long edgesScanned;
+    private long routesFound;
+    private long routesRejected;
+}
@@ -0,0 +1,43 @@
+package com.ttech.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of a background transportation import. Counters only cover {@code committedRows}, the
+ * rows whose chunk has been committed; a resumed job continues right after them.
+ */
+@Data
+@NoArgsConstructor
+public class TransportationImportJob {
+    private String id;
+    private Status status;
+    private String contentType;
+    private long bytesTotal;
+    private long bytesRead;
+    private long committedRows;
+    private int inserted;
+    private int updated;
+    private int invalid;
+    private List<Issue> issues = new ArrayList<>();
+    private String error;
+    private Instant createdAt;
+    private Instant finishedAt;
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Issue {
+        private long row;
+        private String reason;
+    }
+}
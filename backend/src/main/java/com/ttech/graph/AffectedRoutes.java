@@ -0,0 +1,116 @@
+package com.ttech.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Over-approximates which (origin, destination) searches a graph update can change. A valid route has at
+ * most three legs, so a changed edge {@code u -> v} only matters to origins at most two legs before
+ * {@code u} and destinations at most two legs after {@code v}, with at most two such legs in total.
+ * Neighbourhoods are taken in the previous graph for the edge's old position and in the current one
+ * for its new position.
+ */
+public final class AffectedRoutes {
+
+    private static final int MAX_EXTRA_LEGS = 2;
+    private static final int MAX_TRACKED_CHANGES = 1_000;
+
+    private final boolean everything;
+    private final List<Neighbourhood> neighbourhoods = new ArrayList<>();
+
+    private AffectedRoutes(boolean everything) {
+        this.everything = everything;
+    }
+
+    public static AffectedRoutes of(RouteGraphUpdatedEvent event) {
+        List<RouteGraphChange> changes = event.changes();
+        if (event.previous() == null || changes == null || changes.size() > MAX_TRACKED_CHANGES) {
+            return new AffectedRoutes(true);
+        }
+
+        AffectedRoutes affected = new AffectedRoutes(false);
+        for (RouteGraphChange change : changes) {
+            long transportationId;
+            if (change instanceof RouteGraphChange.TransportationSaved saved) {
+                transportationId = saved.transportationId();
+            } else if (change instanceof RouteGraphChange.TransportationDeleted deleted) {
+                transportationId = deleted.transportationId();
+            } else {
+                // Location changes rename or remove nodes that cached routes may embed
+                return new AffectedRoutes(true);
+            }
+            affected.addEdge(event.previous(), transportationId);
+            affected.addEdge(event.current(), transportationId);
+        }
+        return affected;
+    }
+
+    public boolean isEverything() {
+        return everything;
+    }
+
+    public boolean affects(String originCode, String destinationCode) {
+        if (everything) {
+            return true;
+        }
+        for (Neighbourhood neighbourhood : neighbourhoods) {
+            Integer before = neighbourhood.origins().get(originCode);
+            Integer after = neighbourhood.destinations().get(destinationCode);
+            if (before != null && after != null && before + after <= MAX_EXTRA_LEGS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the update can change any route from {@code originCode}, whatever the destination.
+     */
+    public boolean affectsOrigin(String originCode) {
+        if (everything) {
+            return true;
+        }
+        for (Neighbourhood neighbourhood : neighbourhoods) {
+            if (neighbourhood.origins().containsKey(originCode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addEdge(RouteGraph graph, long transportationId) {
+        int edge = graph.edgeOf(transportationId);
+        if (edge < 0) {
+            return;
+        }
+        neighbourhoods.add(new Neighbourhood(
+                legsAround(graph, graph.source(edge), false),
+                legsAround(graph, graph.target(edge), true)));
+    }
+
+    private static Map<String, Integer> legsAround(RouteGraph graph, int start, boolean forward) {
+        Map<String, Integer> legs = new HashMap<>();
+        legs.put(graph.location(start).getLocationCode(), 0);
+        List<Integer> frontier = List.of(start);
+        for (int depth = 1; depth <= MAX_EXTRA_LEGS; depth++) {
+            List<Integer> next = new ArrayList<>();
+            for (int node : frontier) {
+                int first = forward ? graph.firstEdge(node) : graph.firstInEdge(node);
+                int end = forward ? graph.endEdge(node) : graph.endInEdge(node);
+                for (int i = first; i < end; i++) {
+                    int neighbour = forward ? graph.target(i) : graph.source(graph.inEdge(i));
+                    if (legs.putIfAbsent(graph.location(neighbour).getLocationCode(), depth) == null) {
+                        next.add(neighbour);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return legs;
+    }
+
+    private record Neighbourhood(Map<String, Integer> origins, Map<String, Integer> destinations) {
+    }
+}
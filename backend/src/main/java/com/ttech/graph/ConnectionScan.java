@@ -0,0 +1,179 @@
+package com.ttech.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Connection Scan over a {@link Timetable}: one pass over the day's connections in departure order finds
+ * the earliest arrival of every valid route shape, i.e. at most one ground leg, exactly one flight and at
+ * most one more ground leg. Instead of one label per location there is one per location and route
+ * prefix (after a ground leg, after a direct flight, after ground leg and flight), each holding the
+ * earliest arrival and the legs that achieve it. A connection extends a prefix when it leaves at least the
+ * location's minimum connection time after the prefix arrived; the first leg only has to leave no earlier
+ * than the requested departure.
+ * <p>
+ * The result is the Pareto front over arrival time and number of legs: the earliest arrival overall, then
+ * each route with fewer legs that arrives later, never one that is both slower and longer. Legs into the
+ * origin and self-loops are never taken and the first ground leg never ends at the destination, so no
+ * route visits a location twice.
+ */
+public final class ConnectionScan {
+
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    private static final int MAX_LEGS = 3;
+
+    /**
+     * A route found by the scan. Legs are edge ids, missing ground legs {@link RouteFinder#NO_LEG}; the
+     * times are minutes from the start of the search day.
+     */
+    public record Journey(int groundBefore, int flight, int groundAfter, int departure, int arrival) {
+
+        public int legs() {
+            int legs = 1;
+            if (groundBefore != RouteFinder.NO_LEG) {
+                legs++;
+            }
+            if (groundAfter != RouteFinder.NO_LEG) {
+                legs++;
+            }
+            return legs;
+        }
+    }
+
+    private ConnectionScan() {
+    }
+
+    /**
+     * Returns the Pareto-optimal journeys from {@code origin} to {@code destination} ordered by arrival, so
+     * the first one is the earliest arrival. {@code minConnection} gives the minimum minutes between arriving
+     * at a node and leaving it again.
+     */
+    public static List<Journey> search(RouteGraph graph, Timetable timetable, int origin, int destination,
+                                       int departAfter, IntUnaryOperator minConnection, SearchStats stats) {
+        if (origin == destination) {
+            return List.of();
+        }
+        Labels afterGround = new Labels(graph.nodeCount());
+        Labels afterFlight = new Labels(graph.nodeCount());
+        Labels afterGroundAndFlight = new Labels(graph.nodeCount());
+        int[] groundBeforeFlight = new int[graph.nodeCount()];
+        Journey[] best = new Journey[MAX_LEGS + 1];
+
+        for (int c = timetable.firstDepartingAt(departAfter); c < timetable.size(); c++) {
+            int departure = timetable.departure(c);
+            // Whatever leaves from now on arrives no earlier than the fastest single leg already found
+            if (best[1] != null && departure >= best[1].arrival()) {
+                break;
+            }
+            stats.edgesScanned++;
+            int edge = timetable.edge(c);
+            int from = graph.source(edge);
+            int to = graph.target(edge);
+            if (from == to || to == origin) {
+                continue;
+            }
+            int arrival = timetable.arrival(c);
+
+            if (graph.isFlight(edge)) {
+                if (from == origin) {
+                    if (to == destination) {
+                        offer(best, new Journey(RouteFinder.NO_LEG, edge, RouteFinder.NO_LEG, departure, arrival));
+                    } else if (afterFlight.improve(to, departure, arrival, edge)) {
+                        stats.nodesExpanded++;
+                    }
+                } else if (afterGround.canLeave(from, departure, minConnection)) {
+                    int groundBefore = afterGround.edge(from);
+                    int firstDeparture = afterGround.departure(from);
+                    if (to == destination) {
+                        offer(best, new Journey(groundBefore, edge, RouteFinder.NO_LEG, firstDeparture, arrival));
+                    } else if (afterGroundAndFlight.improve(to, firstDeparture, arrival, edge)) {
+                        groundBeforeFlight[to] = groundBefore;
+                        stats.nodesExpanded++;
+                    }
+                }
+                continue;
+            }
+
+            if (from == origin) {
+                if (to != destination && afterGround.improve(to, departure, arrival, edge)) {
+                    stats.nodesExpanded++;
+                }
+            } else if (to == destination) {
+                if (afterFlight.canLeave(from, departure, minConnection)) {
+                    offer(best, new Journey(RouteFinder.NO_LEG, afterFlight.edge(from), edge,
+                            afterFlight.departure(from), arrival));
+                }
+                if (afterGroundAndFlight.canLeave(from, departure, minConnection)) {
+                    offer(best, new Journey(groundBeforeFlight[from], afterGroundAndFlight.edge(from), edge,
+                            afterGroundAndFlight.departure(from), arrival));
+                }
+            }
+        }
+
+        List<Journey> front = new ArrayList<>(MAX_LEGS);
+        int earliest = UNREACHED;
+        for (int legs = 1; legs <= MAX_LEGS; legs++) {
+            if (best[legs] != null && best[legs].arrival() < earliest) {
+                front.add(0, best[legs]);
+                earliest = best[legs].arrival();
+            }
+        }
+        return front;
+    }
+
+    // Keeps the best journey per number of legs
+    private static void offer(Journey[] best, Journey journey) {
+        Journey current = best[journey.legs()];
+        if (current == null
+                || isBetter(journey.arrival(), journey.departure(), current.arrival(), current.departure())) {
+            best[journey.legs()] = journey;
+        }
+    }
+
+    private static boolean isBetter(int arrival, int departure, int bestArrival, int bestDeparture) {
+        return arrival < bestArrival || arrival == bestArrival && departure > bestDeparture;
+    }
+
+    /**
+     * Earliest arrival per node for one route prefix, with the departure of the prefix's first leg and
+     * the edge that arrived.
+     */
+    private static final class Labels {
+
+        private final int[] arrivals;
+        private final int[] departures;
+        private final int[] edges;
+
+        Labels(int nodeCount) {
+            arrivals = new int[nodeCount];
+            departures = new int[nodeCount];
+            edges = new int[nodeCount];
+            Arrays.fill(arrivals, UNREACHED);
+        }
+
+        boolean improve(int node, int departure, int arrival, int edge) {
+            if (arrivals[node] != UNREACHED && !isBetter(arrival, departure, arrivals[node], departures[node])) {
+                return false;
+            }
+            arrivals[node] = arrival;
+            departures[node] = departure;
+            edges[node] = edge;
+            return true;
+        }
+
+        boolean canLeave(int node, int departure, IntUnaryOperator minConnection) {
+            return arrivals[node] != UNREACHED
+                    && (long) arrivals[node] + minConnection.applyAsInt(node) <= departure;
+        }
+
+        int departure(int node) {
+            return departures[node];
+        }
+
+        int edge(int node) {
+            return edges[node];
+        }
+    }
+}
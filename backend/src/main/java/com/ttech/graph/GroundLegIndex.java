@@ -0,0 +1,83 @@
+package com.ttech.graph;
+
+import java.util.Arrays;
+
+/**
+ * Hash index of the ground legs that reach a destination, keyed by the node they leave from.
+ * Built from the destination's incoming edges, which the snapshot keeps grouped by source node,
+ * so every source maps to one contiguous run of edges.
+ */
+final class GroundLegIndex {
+
+    private final int[] edges;
+    private final int[] keys;
+    private final int[] starts;
+    private final int[] ends;
+    private final int mask;
+
+    private GroundLegIndex(int[] edges, int[] keys, int[] starts, int[] ends) {
+        this.edges = edges;
+        this.keys = keys;
+        this.starts = starts;
+        this.ends = ends;
+        this.mask = keys.length - 1;
+    }
+
+    /**
+     * Indexes the ground legs into {@code destination} that run on the given day, skipping legs that
+     * start at the origin or at the destination itself.
+     */
+    static GroundLegIndex into(RouteGraph graph, RouteGraph.DayView day, int origin, int destination) {
+        int[] edges = new int[day.endInEdge(destination) - day.firstInEdge(destination)];
+        int count = 0;
+        for (int i = day.firstInEdge(destination); i < day.endInEdge(destination); i++) {
+            int edge = day.inEdge(i);
+            int source = graph.source(edge);
+            if (!graph.isFlight(edge) && source != origin && source != destination) {
+                edges[count++] = edge;
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(1, count) * 2 - 1) << 1;
+        int[] keys = new int[capacity];
+        int[] starts = new int[capacity];
+        int[] ends = new int[capacity];
+        Arrays.fill(keys, -1);
+        GroundLegIndex index = new GroundLegIndex(Arrays.copyOf(edges, count), keys, starts, ends);
+        for (int start = 0; start < count; ) {
+            int source = graph.source(edges[start]);
+            int end = start + 1;
+            while (end < count && graph.source(edges[end]) == source) {
+                end++;
+            }
+            int slot = index.slot(source);
+            keys[slot] = source;
+            starts[slot] = start;
+            ends[slot] = end;
+            start = end;
+        }
+        return index;
+    }
+
+    int first(int source) {
+        int slot = slot(source);
+        return keys[slot] == source ? starts[slot] : 0;
+    }
+
+    int end(int source) {
+        int slot = slot(source);
+        return keys[slot] == source ? ends[slot] : 0;
+    }
+
+    int edge(int position) {
+        return edges[position];
+    }
+
+    private int slot(int node) {
+        int slot = (node * 0x9E3779B9) >>> 16 & mask;
+        while (keys[slot] != -1 && keys[slot] != node) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
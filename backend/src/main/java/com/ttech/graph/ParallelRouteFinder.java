@@ -0,0 +1,349 @@
+package com.ttech.graph;
+
+import com.ttech.graph.RouteFinder.BestRoutes;
+import com.ttech.graph.RouteFinder.Candidate;
+import com.ttech.graph.RouteFinder.RouteConsumer;
+import com.ttech.model.Transportation.TransportationType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The searches of {@link RouteFinder} split across a fork-join pool, for origins whose fan-out is too
+ * large for one core. The work is cut into units in the order the sequential search meets it: one per
+ * direct flight from the origin and, for every ground leg out of it, the transfer's outgoing legs in
+ * slices of at most {@link #SLICE} edges, so a single busy transfer is split as well. Consecutive units
+ * are grouped into tasks of roughly equal work, and each task writes to its own buffer and counters.
+ * The buffers are replayed to the consumer in task order on the calling thread, so the consumer sees
+ * exactly the routes, in exactly the order, of the sequential search.
+ */
+public final class ParallelRouteFinder {
+
+    // Transfer legs per unit; small enough to spread a hub, large enough to keep units cheap
+    static final int SLICE = 256;
+    // Minimum work per task, below which forking costs more than it saves
+    static final int MIN_TASK_WORK = 2_048;
+    private static final int TASKS_PER_THREAD = 4;
+
+    private ParallelRouteFinder() {
+    }
+
+    /**
+     * Legs a search from {@code origin} will scan before joining into the destination: the origin's
+     * own legs plus the outgoing legs of every transfer point its ground legs reach.
+     */
+    public static long estimateFanOut(RouteGraph graph, RouteGraph.DayView day, int origin) {
+        long fanOut = day.endEdge(origin) - day.firstEdge(origin);
+        for (int i = day.firstEdge(origin); i < day.endEdge(origin); i++) {
+            int edge = day.edge(i);
+            if (!graph.isFlight(edge)) {
+                int transfer = graph.target(edge);
+                fanOut += day.endEdge(transfer) - day.firstEdge(transfer);
+            }
+        }
+        return fanOut;
+    }
+
+    /**
+     * Same routes and order as {@link RouteFinder#findRoutes}, but passed on only once every task has
+     * finished, so all of them are held in memory at once.
+     */
+    public static void findRoutes(RouteGraph graph, RouteGraph.DayView day, int origin, int destination,
+                                  RouteConsumer consumer, SearchStats stats, ForkJoinPool pool) {
+        if (origin == destination) {
+            return;
+        }
+        GroundLegIndex arrivals = GroundLegIndex.into(graph, day, origin, destination);
+        Units units = Units.plan(graph, day, origin, destination);
+        stats.nodesExpanded++;
+        stats.edgesScanned += day.endEdge(origin) - day.firstEdge(origin);
+
+        List<RouteTask> tasks = new ArrayList<>();
+        for (int[] range : units.split(pool.getParallelism())) {
+            tasks.add(new RouteTask(graph, day, origin, destination, arrivals, units, range[0], range[1]));
+        }
+        pool.invoke(new ForkAll(tasks));
+
+        for (RouteTask task : tasks) {
+            stats.add(task.stats);
+            int[] routes = task.routes;
+            for (int i = 0; i < task.size; i += 3) {
+                consumer.accept(routes[i], routes[i + 1], routes[i + 2]);
+            }
+        }
+    }
+
+    /**
+     * Same routes and order as {@link RouteFinder#findBestRoutes}. Each task keeps its own best
+     * {@code limit} candidates and prunes against them; since candidates are totally ordered, merging
+     * the tasks' survivors gives the same result as one shared ranking would.
+     */
+    public static void findBestRoutes(RouteGraph graph, RouteGraph.DayView day, int origin, int destination,
+                                      int[] legCosts, int limit, RouteConsumer consumer, SearchStats stats,
+                                      ForkJoinPool pool) {
+        if (origin == destination || limit <= 0) {
+            return;
+        }
+        GroundLegIndex arrivals = GroundLegIndex.into(graph, day, origin, destination);
+        Units units = Units.plan(graph, day, origin, destination);
+        stats.nodesExpanded++;
+
+        List<RankedTask> tasks = new ArrayList<>();
+        for (int[] range : units.split(pool.getParallelism())) {
+            tasks.add(new RankedTask(graph, day, origin, destination, arrivals, legCosts, limit, units,
+                    range[0], range[1]));
+        }
+        pool.invoke(new ForkAll(tasks));
+
+        BestRoutes best = new BestRoutes(limit);
+        for (RankedTask task : tasks) {
+            stats.add(task.stats);
+            for (Candidate candidate : task.best.sorted()) {
+                best.offer(candidate);
+            }
+        }
+        for (Candidate candidate : best.sorted()) {
+            consumer.accept(candidate.groundBefore(), candidate.flight(), candidate.groundAfter());
+        }
+    }
+
+    /**
+     * Units of work in sequential search order. A unit is an origin position and, for ground legs, a
+     * slice {@code [from, to)} of the transfer's outgoing legs; direct flights have no slice.
+     */
+    private static final class Units {
+
+        final int[] positions;
+        final int[] from;
+        final int[] to;
+        // Work of units [0, i), used to cut tasks of equal work
+        final long[] work;
+        int count;
+
+        private Units(int capacity) {
+            positions = new int[capacity];
+            from = new int[capacity];
+            to = new int[capacity];
+            work = new long[capacity + 1];
+        }
+
+        static Units plan(RouteGraph graph, RouteGraph.DayView day, int origin, int destination) {
+            int capacity = 0;
+            for (int i = day.firstEdge(origin); i < day.endEdge(origin); i++) {
+                int edge = day.edge(i);
+                int transfer = graph.target(edge);
+                capacity += graph.isFlight(edge) ? 1
+                        : Math.max(1, (day.endEdge(transfer) - day.firstEdge(transfer) + SLICE - 1) / SLICE);
+            }
+
+            Units units = new Units(capacity);
+            for (int i = day.firstEdge(origin); i < day.endEdge(origin); i++) {
+                int edge = day.edge(i);
+                if (graph.isFlight(edge)) {
+                    units.add(i, RouteFinder.NO_LEG, RouteFinder.NO_LEG, 1);
+                    continue;
+                }
+                int transfer = graph.target(edge);
+                if (transfer == origin || transfer == destination) {
+                    continue;
+                }
+                int first = day.firstEdge(transfer);
+                int end = day.endEdge(transfer);
+                int start = first;
+                do {
+                    int stop = Math.min(end, start + SLICE);
+                    units.add(i, start, stop, 1 + stop - start);
+                    start = stop;
+                } while (start < end);
+            }
+            return units;
+        }
+
+        private void add(int position, int sliceFrom, int sliceTo, long unitWork) {
+            positions[count] = position;
+            from[count] = sliceFrom;
+            to[count] = sliceTo;
+            work[count + 1] = work[count] + unitWork;
+            count++;
+        }
+
+        /**
+         * Cuts the units into consecutive ranges of about equal work, a few per thread so that
+         * uneven ranges still balance out.
+         */
+        List<int[]> split(int parallelism) {
+            long total = work[count];
+            int taskCount = (int) Math.max(1, Math.min((long) parallelism * TASKS_PER_THREAD,
+                    total / MIN_TASK_WORK));
+            List<int[]> ranges = new ArrayList<>(taskCount);
+            int start = 0;
+            for (int t = 1; t <= taskCount && start < count; t++) {
+                long target = total * t / taskCount;
+                int end = t == taskCount ? count : firstUnitReaching(target, start + 1);
+                ranges.add(new int[]{start, end});
+                start = end;
+            }
+            return ranges;
+        }
+
+        // Smallest end from low on whose prefix work reaches target
+        private int firstUnitReaching(long target, int low) {
+            int index = Arrays.binarySearch(work, low, count + 1, target);
+            int end = index >= 0 ? index : -index - 1;
+            return Math.min(count, Math.max(low, end));
+        }
+
+        boolean startsTransfer(RouteGraph.DayView day, RouteGraph graph, int unit) {
+            return from[unit] == day.firstEdge(graph.target(day.edge(positions[unit])));
+        }
+    }
+
+    private static final class ForkAll extends RecursiveAction {
+
+        private final List<? extends ForkJoinTask<?>> tasks;
+
+        ForkAll(List<? extends ForkJoinTask<?>> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    private static final class RouteTask extends RecursiveAction {
+
+        private final RouteGraph graph;
+        private final RouteGraph.DayView day;
+        private final int origin;
+        private final int destination;
+        private final GroundLegIndex arrivals;
+        private final Units units;
+        private final int start;
+        private final int end;
+        final SearchStats stats = new SearchStats();
+        // Routes as (groundBefore, flight, groundAfter) triples
+        int[] routes = new int[48];
+        int size;
+
+        RouteTask(RouteGraph graph, RouteGraph.DayView day, int origin, int destination, GroundLegIndex arrivals,
+                  Units units, int start, int end) {
+            this.graph = graph;
+            this.day = day;
+            this.origin = origin;
+            this.destination = destination;
+            this.arrivals = arrivals;
+            this.units = units;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            RouteConsumer buffer = this::add;
+            for (int unit = start; unit < end; unit++) {
+                int edge = day.edge(units.positions[unit]);
+                if (units.from[unit] == RouteFinder.NO_LEG) {
+                    RouteFinder.joinFlight(graph, origin, RouteFinder.NO_LEG, RouteFinder.NO_LEG, edge, destination,
+                            arrivals, buffer, stats);
+                    continue;
+                }
+                int transfer = graph.target(edge);
+                if (units.startsTransfer(day, graph, unit)) {
+                    stats.nodesExpanded++;
+                }
+                stats.edgesScanned += units.to[unit] - units.from[unit];
+                for (int j = units.from[unit]; j < units.to[unit]; j++) {
+                    int flight = day.edge(j);
+                    if (graph.isFlight(flight)) {
+                        RouteFinder.joinFlight(graph, origin, transfer, edge, flight, destination, arrivals, buffer,
+                                stats);
+                    }
+                }
+            }
+        }
+
+        private void add(int groundBefore, int flight, int groundAfter) {
+            if (size + 3 > routes.length) {
+                routes = Arrays.copyOf(routes, routes.length * 2);
+            }
+            routes[size++] = groundBefore;
+            routes[size++] = flight;
+            routes[size++] = groundAfter;
+        }
+    }
+
+    private static final class RankedTask extends RecursiveAction {
+
+        private final RouteGraph graph;
+        private final RouteGraph.DayView day;
+        private final int origin;
+        private final int destination;
+        private final GroundLegIndex arrivals;
+        private final int[] legCosts;
+        private final Units units;
+        private final int start;
+        private final int end;
+        final SearchStats stats = new SearchStats();
+        final BestRoutes best;
+
+        RankedTask(RouteGraph graph, RouteGraph.DayView day, int origin, int destination, GroundLegIndex arrivals,
+                   int[] legCosts, int limit, Units units, int start, int end) {
+            this.graph = graph;
+            this.day = day;
+            this.origin = origin;
+            this.destination = destination;
+            this.arrivals = arrivals;
+            this.legCosts = legCosts;
+            this.units = units;
+            this.start = start;
+            this.end = end;
+            this.best = new BestRoutes(limit);
+        }
+
+        @Override
+        protected void compute() {
+            long flightCost = legCosts[TransportationType.FLIGHT.ordinal()];
+            for (int unit = start; unit < end; unit++) {
+                int position = units.positions[unit];
+                int edge = day.edge(position);
+                long legCost = RouteFinder.cost(graph, edge, legCosts);
+                if (units.from[unit] == RouteFinder.NO_LEG) {
+                    stats.edgesScanned++;
+                    if (!best.isFull() || legCost <= best.worst().cost()) {
+                        RouteFinder.joinRanked(graph, origin, RouteFinder.NO_LEG, RouteFinder.NO_LEG, edge,
+                                destination, arrivals, legCosts, legCost, position, RouteFinder.NO_LEG, best, stats);
+                    }
+                    continue;
+                }
+                // Same lower bound as the sequential search: no route through this leg costs less
+                if (best.isFull() && legCost + flightCost > best.worst().cost()) {
+                    continue;
+                }
+                int transfer = graph.target(edge);
+                if (units.startsTransfer(day, graph, unit)) {
+                    stats.edgesScanned++;
+                    stats.nodesExpanded++;
+                }
+                stats.edgesScanned += units.to[unit] - units.from[unit];
+                for (int j = units.from[unit]; j < units.to[unit]; j++) {
+                    int flight = day.edge(j);
+                    if (!graph.isFlight(flight)) {
+                        continue;
+                    }
+                    long cost = legCost + RouteFinder.cost(graph, flight, legCosts);
+                    if (best.isFull() && cost > best.worst().cost()) {
+                        continue;
+                    }
+                    RouteFinder.joinRanked(graph, origin, transfer, edge, flight, destination, arrivals, legCosts,
+                            cost, position, j, best, stats);
+                }
+            }
+        }
+    }
+}
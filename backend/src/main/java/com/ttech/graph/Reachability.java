@@ -0,0 +1,137 @@
+package com.ttech.graph;
+
+/**
+ * Every location reachable from one origin on one day, with the number of valid routes to it and the
+ * fewest legs among them. Counts the same routes {@link RouteFinder#findRoutes} would emit for each
+ * destination, but in one staged sweep from the origin: ground legs from the origin, flights from there
+ * and from the origin, then ground legs from every landing. Routes are counted per node instead of
+ * built, so the work is bounded by the out-degrees of the nodes on those stages, not by the number of
+ * routes.
+ * <p>
+ * Counting per node loses which transfer point a route used, so the last stage also counts routes
+ * whose ground leg returns to their own transfer point. Those are subtracted afterwards from the
+ * incoming ground legs of each transfer point.
+ */
+public final class Reachability {
+
+    private final long[] routeCounts;
+    private final byte[] minLegs;
+
+    private Reachability(long[] routeCounts, byte[] minLegs) {
+        this.routeCounts = routeCounts;
+        this.minLegs = minLegs;
+    }
+
+    public static Reachability from(RouteGraph graph, RouteGraph.DayView day, int origin, SearchStats stats) {
+        int nodeCount = graph.nodeCount();
+        long[] groundLegs = new long[nodeCount];
+        long[] directFlights = new long[nodeCount];
+        long[] groundAndFlight = new long[nodeCount];
+        long[] flightAndGround = new long[nodeCount];
+        long[] threeLegs = new long[nodeCount];
+
+        stats.nodesExpanded++;
+        stats.edgesScanned += day.endEdge(origin) - day.firstEdge(origin);
+        for (int i = day.firstEdge(origin); i < day.endEdge(origin); i++) {
+            int edge = day.edge(i);
+            int target = graph.target(edge);
+            if (target == origin) {
+                continue;
+            }
+            if (graph.isFlight(edge)) {
+                directFlights[target]++;
+            } else {
+                groundLegs[target]++;
+            }
+        }
+
+        // Flights from the transfer points reached by ground
+        for (int transfer = 0; transfer < nodeCount; transfer++) {
+            if (groundLegs[transfer] == 0) {
+                continue;
+            }
+            stats.nodesExpanded++;
+            stats.edgesScanned += day.endEdge(transfer) - day.firstEdge(transfer);
+            for (int i = day.firstEdge(transfer); i < day.endEdge(transfer); i++) {
+                int flight = day.edge(i);
+                int landing = graph.target(flight);
+                if (graph.isFlight(flight) && landing != origin && landing != transfer) {
+                    groundAndFlight[landing] += groundLegs[transfer];
+                }
+            }
+        }
+
+        // Ground legs from every landing
+        for (int landing = 0; landing < nodeCount; landing++) {
+            if (directFlights[landing] == 0 && groundAndFlight[landing] == 0) {
+                continue;
+            }
+            stats.nodesExpanded++;
+            stats.edgesScanned += day.endEdge(landing) - day.firstEdge(landing);
+            for (int i = day.firstEdge(landing); i < day.endEdge(landing); i++) {
+                int edge = day.edge(i);
+                int target = graph.target(edge);
+                if (!graph.isFlight(edge) && target != origin && target != landing) {
+                    flightAndGround[target] += directFlights[landing];
+                    threeLegs[target] += groundAndFlight[landing];
+                }
+            }
+        }
+
+        // Removes the routes that went transfer -> landing -> back to the same transfer point
+        int[] groundLegsBack = new int[nodeCount];
+        for (int transfer = 0; transfer < nodeCount; transfer++) {
+            if (groundLegs[transfer] == 0) {
+                continue;
+            }
+            for (int i = day.firstInEdge(transfer); i < day.endInEdge(transfer); i++) {
+                int edge = day.inEdge(i);
+                if (!graph.isFlight(edge)) {
+                    groundLegsBack[graph.source(edge)]++;
+                }
+            }
+            for (int i = day.firstEdge(transfer); i < day.endEdge(transfer); i++) {
+                int flight = day.edge(i);
+                int landing = graph.target(flight);
+                if (graph.isFlight(flight) && landing != origin && landing != transfer) {
+                    threeLegs[transfer] -= groundLegs[transfer] * groundLegsBack[landing];
+                }
+            }
+            for (int i = day.firstInEdge(transfer); i < day.endInEdge(transfer); i++) {
+                groundLegsBack[graph.source(day.inEdge(i))] = 0;
+            }
+        }
+
+        long[] routeCounts = new long[nodeCount];
+        byte[] minLegs = new byte[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            if (node == origin) {
+                continue;
+            }
+            routeCounts[node] = directFlights[node] + groundAndFlight[node] + flightAndGround[node] + threeLegs[node];
+            if (directFlights[node] > 0) {
+                minLegs[node] = 1;
+            } else if (groundAndFlight[node] > 0 || flightAndGround[node] > 0) {
+                minLegs[node] = 2;
+            } else if (threeLegs[node] > 0) {
+                minLegs[node] = 3;
+            }
+        }
+        return new Reachability(routeCounts, minLegs);
+    }
+
+    public boolean isReachable(int node) {
+        return routeCounts[node] > 0;
+    }
+
+    public long routeCount(int node) {
+        return routeCounts[node];
+    }
+
+    /**
+     * Fewest legs of any route to {@code node}, or 0 when it is not reachable.
+     */
+    public int minLegs(int node) {
+        return minLegs[node];
+    }
+}
@@ -0,0 +1,240 @@
+package com.ttech.graph;
+
+import com.ttech.model.Transportation.TransportationType;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Staged route search over a {@link RouteGraph}. A valid route is at most one ground leg, exactly one
+ * flight and at most one more ground leg, visiting no location twice. Instead of enumerating every
+ * path and filtering afterwards, the search walks the origin's ground legs, expands only flights from
+ * those transfer points and joins each landing with the ground legs into the destination through
+ * a hash lookup, so the work is bounded by the sum of the local fan-outs.
+ * <p>
+ * {@link #findBestRoutes} ranks routes by the summed cost of their legs and keeps only the best
+ * {@code limit} of them, pruning partial routes whose lower bound can no longer make the cut.
+ * {@link ParallelRouteFinder} runs the same searches split across a fork-join pool.
+ */
+public final class RouteFinder {
+
+    public static final int NO_LEG = -1;
+
+    @FunctionalInterface
+    public interface RouteConsumer {
+        /**
+         * Receives one route as edge ids; missing ground legs are {@link #NO_LEG}.
+         */
+        void accept(int groundBefore, int flight, int groundAfter);
+    }
+
+    private RouteFinder() {
+    }
+
+    public static void findRoutes(RouteGraph graph, RouteGraph.DayView day, int origin, int destination,
+                                  RouteConsumer consumer) {
+        findRoutes(graph, day, origin, destination, consumer, new SearchStats());
+    }
+
+    public static void findRoutes(RouteGraph graph, RouteGraph.DayView day, int origin, int destination,
+                                  RouteConsumer consumer, SearchStats stats) {
+        if (origin == destination) {
+            return;
+        }
+        GroundLegIndex arrivals = GroundLegIndex.into(graph, day, origin, destination);
+
+        stats.nodesExpanded++;
+        stats.edgesScanned += day.endEdge(origin) - day.firstEdge(origin);
+        for (int i = day.firstEdge(origin); i < day.endEdge(origin); i++) {
+            int edge = day.edge(i);
+            if (graph.isFlight(edge)) {
+                joinFlight(graph, origin, NO_LEG, NO_LEG, edge, destination, arrivals, consumer, stats);
+                continue;
+            }
+
+            int transfer = graph.target(edge);
+            if (transfer == origin || transfer == destination) {
+                continue;
+            }
+            stats.nodesExpanded++;
+            stats.edgesScanned += day.endEdge(transfer) - day.firstEdge(transfer);
+            for (int j = day.firstEdge(transfer); j < day.endEdge(transfer); j++) {
+                int flight = day.edge(j);
+                if (graph.isFlight(flight)) {
+                    joinFlight(graph, origin, transfer, edge, flight, destination, arrivals, consumer, stats);
+                }
+            }
+        }
+    }
+
+    /**
+     * Emits the {@code limit} cheapest routes in ascending cost, where a route costs the sum of
+     * {@code legCosts[type.ordinal()]} over its legs. Routes of equal cost keep the order in which
+     * {@link #findRoutes} would emit them, so the result equals sorting its output and taking the first
+     * {@code limit}. Origin legs are expanded in lower-bound order and the search stops as soon as none
+     * of the remaining ones can beat the current {@code limit}-th best route. Costs must not be negative.
+     */
+    public static void findBestRoutes(RouteGraph graph, RouteGraph.DayView day, int origin, int destination,
+                                      int[] legCosts, int limit, RouteConsumer consumer) {
+        findBestRoutes(graph, day, origin, destination, legCosts, limit, consumer, new SearchStats());
+    }
+
+    public static void findBestRoutes(RouteGraph graph, RouteGraph.DayView day, int origin, int destination,
+                                      int[] legCosts, int limit, RouteConsumer consumer, SearchStats stats) {
+        if (origin == destination || limit <= 0) {
+            return;
+        }
+        GroundLegIndex arrivals = GroundLegIndex.into(graph, day, origin, destination);
+        int flightCost = legCosts[TransportationType.FLIGHT.ordinal()];
+        stats.nodesExpanded++;
+
+        // Lower bound in the high half, position in the low half: sorting orders by bound, then position
+        int first = day.firstEdge(origin);
+        long[] order = new long[day.endEdge(origin) - first];
+        for (int i = 0; i < order.length; i++) {
+            int edge = day.edge(first + i);
+            long lowerBound = cost(graph, edge, legCosts) + (graph.isFlight(edge) ? 0 : flightCost);
+            order[i] = lowerBound << 32 | i;
+        }
+        Arrays.sort(order);
+
+        BestRoutes best = new BestRoutes(limit);
+        for (long entry : order) {
+            long lowerBound = entry >>> 32;
+            int position = first + (int) entry;
+            if (best.isFull() && lowerBound >= best.worst().cost()) {
+                if (lowerBound > best.worst().cost()) {
+                    break;
+                }
+                if (position > best.worst().originPosition()) {
+                    // Equal cost but emitted later, so none of its routes can replace the worst one
+                    continue;
+                }
+            }
+
+            int edge = day.edge(position);
+            stats.edgesScanned++;
+            long legCost = cost(graph, edge, legCosts);
+            if (graph.isFlight(edge)) {
+                joinRanked(graph, origin, NO_LEG, NO_LEG, edge, destination, arrivals, legCosts,
+                        legCost, position, NO_LEG, best, stats);
+                continue;
+            }
+
+            int transfer = graph.target(edge);
+            if (transfer == origin || transfer == destination) {
+                continue;
+            }
+            stats.nodesExpanded++;
+            stats.edgesScanned += day.endEdge(transfer) - day.firstEdge(transfer);
+            for (int j = day.firstEdge(transfer); j < day.endEdge(transfer); j++) {
+                int flight = day.edge(j);
+                if (!graph.isFlight(flight)) {
+                    continue;
+                }
+                long cost = legCost + cost(graph, flight, legCosts);
+                if (best.isFull() && cost > best.worst().cost()) {
+                    continue;
+                }
+                joinRanked(graph, origin, transfer, edge, flight, destination, arrivals, legCosts,
+                        cost, position, j, best, stats);
+            }
+        }
+
+        for (Candidate candidate : best.sorted()) {
+            consumer.accept(candidate.groundBefore(), candidate.flight(), candidate.groundAfter());
+        }
+    }
+
+    static void joinFlight(RouteGraph graph, int origin, int transfer, int groundBefore, int flight,
+                                   int destination, GroundLegIndex arrivals, RouteConsumer consumer,
+                                   SearchStats stats) {
+        int landing = graph.target(flight);
+        if (landing == origin || landing == transfer) {
+            return;
+        }
+        if (landing == destination) {
+            consumer.accept(groundBefore, flight, NO_LEG);
+            return;
+        }
+        stats.edgesScanned += arrivals.end(landing) - arrivals.first(landing);
+        for (int i = arrivals.first(landing); i < arrivals.end(landing); i++) {
+            consumer.accept(groundBefore, flight, arrivals.edge(i));
+        }
+    }
+
+    static void joinRanked(RouteGraph graph, int origin, int transfer, int groundBefore, int flight,
+                                   int destination, GroundLegIndex arrivals, int[] legCosts, long cost,
+                                   int originPosition, int flightPosition, BestRoutes best,
+                                   SearchStats stats) {
+        int landing = graph.target(flight);
+        if (landing == origin || landing == transfer) {
+            return;
+        }
+        if (landing == destination) {
+            best.offer(new Candidate(cost, originPosition, flightPosition, NO_LEG, groundBefore, flight, NO_LEG));
+            return;
+        }
+        stats.edgesScanned += arrivals.end(landing) - arrivals.first(landing);
+        for (int i = arrivals.first(landing); i < arrivals.end(landing); i++) {
+            int groundAfter = arrivals.edge(i);
+            best.offer(new Candidate(cost + cost(graph, groundAfter, legCosts), originPosition, flightPosition, i,
+                    groundBefore, flight, groundAfter));
+        }
+    }
+
+    static long cost(RouteGraph graph, int edge, int[] legCosts) {
+        return legCosts[graph.type(edge).ordinal()];
+    }
+
+    /**
+     * A ranked route. The three positions are where {@link #findRoutes} meets its legs, so comparing
+     * them reproduces that method's emission order.
+     */
+    record Candidate(long cost, int originPosition, int flightPosition, int arrivalPosition,
+                             int groundBefore, int flight, int groundAfter) {
+
+        static final Comparator<Candidate> ORDER = Comparator.comparingLong(Candidate::cost)
+                .thenComparingInt(Candidate::originPosition)
+                .thenComparingInt(Candidate::flightPosition)
+                .thenComparingInt(Candidate::arrivalPosition);
+    }
+
+    /**
+     * The best {@code limit} candidates seen so far, held in a max-heap so the worst one is at the top.
+     */
+    static final class BestRoutes {
+
+        private final int limit;
+        private final PriorityQueue<Candidate> heap;
+
+        BestRoutes(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.min(limit, 64), Candidate.ORDER.reversed());
+        }
+
+        boolean isFull() {
+            return heap.size() >= limit;
+        }
+
+        Candidate worst() {
+            return heap.peek();
+        }
+
+        void offer(Candidate candidate) {
+            if (!isFull()) {
+                heap.add(candidate);
+            } else if (Candidate.ORDER.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+
+        Candidate[] sorted() {
+            Candidate[] candidates = heap.toArray(new Candidate[0]);
+            Arrays.sort(candidates, Candidate.ORDER);
+            return candidates;
+        }
+    }
+}
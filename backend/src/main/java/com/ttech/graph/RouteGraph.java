@@ -0,0 +1,275 @@
+package com.ttech.graph;
+
+import com.ttech.model.Location;
+import com.ttech.model.OperatingDays;
+import com.ttech.model.Transportation;
+import com.ttech.model.Transportation.TransportationType;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable snapshot of the transportation network used by route search.
+ * Locations are addressed by dense int node ids and outgoing edges are stored
+ * in CSR form: the edges of node {@code n} are {@code edgeOffsets[n]} up to
+ * {@code edgeOffsets[n + 1]}, with edge attributes kept in parallel arrays. A second CSR index
+ * ({@code inEdgeOffsets}/{@code inEdges}) lists the incoming edges of each node, and a {@link DayView}
+ * per weekday repeats both indexes with only the edges operating on that day. The scheduled edges of a
+ * weekday are also available as a {@link Timetable}, built on first use.
+ */
+public final class RouteGraph {
+
+    /** Departure or arrival of an edge without a schedule. */
+    public static final int NO_TIME = -1;
+
+    private static final TransportationType[] TYPES = TransportationType.values();
+
+    private final long version;
+    private final Location[] locations;
+    private final Map<String, Integer> nodesByCode;
+    private final int[] edgeOffsets;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final long[] edgeIds;
+    private final byte[] edgeTypes;
+    private final byte[] edgeDays;
+    private final short[] edgeDepartures;
+    private final short[] edgeArrivals;
+    private final int[] inEdgeOffsets;
+    private final int[] inEdges;
+    private final DayView[] dayViews;
+    private final long[] sortedEdgeIds;
+    private final int[] edgesBySortedId;
+    private final AtomicReferenceArray<Timetable> timetables = new AtomicReferenceArray<>(7);
+
+    RouteGraph(long version, Location[] locations, Map<String, Integer> nodesByCode, int[] edgeOffsets,
+               int[] edgeSources, int[] edgeTargets, long[] edgeIds, byte[] edgeTypes, byte[] edgeDays,
+               short[] edgeDepartures, short[] edgeArrivals, int[] inEdgeOffsets, int[] inEdges,
+               DayView[] dayViews, long[] sortedEdgeIds, int[] edgesBySortedId) {
+        this.version = version;
+        this.locations = locations;
+        this.nodesByCode = nodesByCode;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeSources = edgeSources;
+        this.edgeTargets = edgeTargets;
+        this.edgeIds = edgeIds;
+        this.edgeTypes = edgeTypes;
+        this.edgeDays = edgeDays;
+        this.edgeDepartures = edgeDepartures;
+        this.edgeArrivals = edgeArrivals;
+        this.inEdgeOffsets = inEdgeOffsets;
+        this.inEdges = inEdges;
+        this.dayViews = dayViews;
+        this.sortedEdgeIds = sortedEdgeIds;
+        this.edgesBySortedId = edgesBySortedId;
+    }
+
+    public static RouteGraph empty() {
+        DayView[] dayViews = new DayView[7];
+        for (int day = 0; day < 7; day++) {
+            dayViews[day] = new DayView(new int[1], new int[0], new int[1], new int[0]);
+        }
+        return new RouteGraph(0L, new Location[0], Collections.emptyMap(), new int[1],
+                new int[0], new int[0], new long[0], new byte[0], new byte[0], new short[0], new short[0],
+                new int[1], new int[0], dayViews, new long[0], new int[0]);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int nodeCount() {
+        return locations.length;
+    }
+
+    public int edgeCount() {
+        return edgeTargets.length;
+    }
+
+    /**
+     * Returns the node id of the given location code, or -1 when it is unknown.
+     */
+    public int nodeOf(String locationCode) {
+        Integer node = locationCode != null ? nodesByCode.get(locationCode) : null;
+        return node != null ? node : -1;
+    }
+
+    /**
+     * Returns the edge of the given transportation, or -1 when it is not part of this snapshot.
+     */
+    public int edgeOf(long transportationId) {
+        int position = Arrays.binarySearch(sortedEdgeIds, transportationId);
+        return position >= 0 ? edgesBySortedId[position] : -1;
+    }
+
+    /**
+     * Returns the edge holding the {@code rank}-th smallest transportation id.
+     */
+    int edgeByRank(int rank) {
+        return edgesBySortedId[rank];
+    }
+
+    public Location location(int node) {
+        return locations[node];
+    }
+
+    public int firstEdge(int node) {
+        return edgeOffsets[node];
+    }
+
+    public int endEdge(int node) {
+        return edgeOffsets[node + 1];
+    }
+
+    public int firstInEdge(int node) {
+        return inEdgeOffsets[node];
+    }
+
+    public int endInEdge(int node) {
+        return inEdgeOffsets[node + 1];
+    }
+
+    /**
+     * Returns the edge stored at the given position of the incoming-edge index.
+     */
+    public int inEdge(int position) {
+        return inEdges[position];
+    }
+
+    /**
+     * Returns the adjacency restricted to edges that operate on the given day.
+     */
+    public DayView onDay(DayOfWeek dayOfWeek) {
+        return dayViews[dayOfWeek.getValue() - 1];
+    }
+
+    public int source(int edge) {
+        return edgeSources[edge];
+    }
+
+    public int target(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public long transportationId(int edge) {
+        return edgeIds[edge];
+    }
+
+    public TransportationType type(int edge) {
+        return TYPES[edgeTypes[edge]];
+    }
+
+    public boolean isFlight(int edge) {
+        return edgeTypes[edge] == TransportationType.FLIGHT.ordinal();
+    }
+
+    public int days(int edge) {
+        return edgeDays[edge];
+    }
+
+    public boolean operatesOn(int edge, int dayBit) {
+        return (edgeDays[edge] & dayBit) != 0;
+    }
+
+    /**
+     * Departure as minute of the day, or {@link #NO_TIME}.
+     */
+    public int departure(int edge) {
+        return edgeDepartures[edge];
+    }
+
+    /**
+     * Arrival as minute of the day, or {@link #NO_TIME}. An arrival before the departure is on the next day.
+     */
+    public int arrival(int edge) {
+        return edgeArrivals[edge];
+    }
+
+    public boolean isScheduled(int edge) {
+        return edgeDepartures[edge] != NO_TIME;
+    }
+
+    /**
+     * The scheduled edges operating on the given day, ordered by departure.
+     */
+    public Timetable timetable(DayOfWeek dayOfWeek) {
+        int day = dayOfWeek.getValue() - 1;
+        Timetable timetable = timetables.get(day);
+        if (timetable == null) {
+            // Building twice under contention is harmless, both results are equal
+            timetables.compareAndSet(day, null, Timetable.build(this, 1 << day));
+            timetable = timetables.get(day);
+        }
+        return timetable;
+    }
+
+    public static int minuteOfDay(LocalTime time) {
+        return time != null ? time.getHour() * 60 + time.getMinute() : NO_TIME;
+    }
+
+    private static LocalTime timeOf(int minuteOfDay) {
+        return minuteOfDay != NO_TIME ? LocalTime.of(minuteOfDay / 60, minuteOfDay % 60) : null;
+    }
+
+    /**
+     * Materializes an edge as a detached {@link Transportation} sharing the snapshot's locations.
+     */
+    public Transportation toTransportation(int edge) {
+        Transportation transportation = new Transportation();
+        transportation.setId(edgeIds[edge]);
+        transportation.setOriginLocation(locations[edgeSources[edge]]);
+        transportation.setDestinationLocation(locations[edgeTargets[edge]]);
+        transportation.setTransportationType(type(edge));
+        transportation.setOperatingDays(OperatingDays.toList(edgeDays[edge]));
+        transportation.setDepartureTime(timeOf(edgeDepartures[edge]));
+        transportation.setArrivalTime(timeOf(edgeArrivals[edge]));
+        return transportation;
+    }
+
+    /**
+     * Outgoing and incoming CSR indexes holding only the edges that operate on one weekday.
+     * Positions index into the view's own arrays; {@link #edge} and {@link #inEdge} map them to edge ids.
+     */
+    public static final class DayView {
+
+        private final int[] edgeOffsets;
+        private final int[] edges;
+        private final int[] inEdgeOffsets;
+        private final int[] inEdges;
+
+        DayView(int[] edgeOffsets, int[] edges, int[] inEdgeOffsets, int[] inEdges) {
+            this.edgeOffsets = edgeOffsets;
+            this.edges = edges;
+            this.inEdgeOffsets = inEdgeOffsets;
+            this.inEdges = inEdges;
+        }
+
+        public int firstEdge(int node) {
+            return edgeOffsets[node];
+        }
+
+        public int endEdge(int node) {
+            return edgeOffsets[node + 1];
+        }
+
+        public int edge(int position) {
+            return edges[position];
+        }
+
+        public int firstInEdge(int node) {
+            return inEdgeOffsets[node];
+        }
+
+        public int endInEdge(int node) {
+            return inEdgeOffsets[node + 1];
+        }
+
+        public int inEdge(int position) {
+            return inEdges[position];
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.ttech.graph;
+
+import com.ttech.model.Location;
+import com.ttech.model.OperatingDays;
+import com.ttech.model.Transportation;
+import com.ttech.model.Transportation.TransportationType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects locations and transportations and packs them into an immutable {@link RouteGraph}.
+ * Node ids follow location id order and edges keep transportation id order within each origin,
+ * so equal inputs always produce identical snapshots.
+ */
+public class RouteGraphBuilder {
+
+    private final Map<Long, Location> locations = new HashMap<>();
+    private final Map<Long, Edge> edges = new HashMap<>();
+
+    /**
+     * Starts a builder seeded with the contents of an existing snapshot, which itself stays untouched.
+     */
+    public static RouteGraphBuilder from(RouteGraph graph) {
+        RouteGraphBuilder builder = new RouteGraphBuilder();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            builder.addLocation(graph.location(node));
+        }
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            builder.addEdge(graph.transportationId(edge),
+                    graph.location(graph.source(edge)).getId(),
+                    graph.location(graph.target(edge)).getId(),
+                    graph.type(edge), graph.days(edge), graph.departure(edge), graph.arrival(edge));
+        }
+        return builder;
+    }
+
+    public RouteGraphBuilder apply(RouteGraphChange change) {
+        if (change instanceof RouteGraphChange.LocationSaved saved) {
+            addLocation(saved.location());
+        } else if (change instanceof RouteGraphChange.LocationDeleted deleted) {
+            locations.remove(deleted.locationId());
+        } else if (change instanceof RouteGraphChange.TransportationSaved saved) {
+            addEdge(saved.transportationId(), saved.originId(), saved.destinationId(), saved.type(), saved.days(),
+                    saved.departure(), saved.arrival());
+        } else if (change instanceof RouteGraphChange.TransportationDeleted deleted) {
+            edges.remove(deleted.transportationId());
+        }
+        return this;
+    }
+
+    public RouteGraphBuilder addLocation(Location location) {
+        locations.put(location.getId(), location);
+        return this;
+    }
+
+    public RouteGraphBuilder addTransportation(Transportation transportation) {
+        if (transportation.getOriginLocation() == null || transportation.getDestinationLocation() == null
+                || transportation.getTransportationType() == null) {
+            return this;
+        }
+        Integer days = transportation.getOperatingDaysMask();
+        return addEdge(transportation.getId(),
+                transportation.getOriginLocation().getId(),
+                transportation.getDestinationLocation().getId(),
+                transportation.getTransportationType(),
+                days != null ? days : OperatingDays.toMask(transportation.getOperatingDays()),
+                RouteGraph.minuteOfDay(transportation.getDepartureTime()),
+                RouteGraph.minuteOfDay(transportation.getArrivalTime()));
+    }
+
+    public RouteGraphBuilder addEdge(long id, long originId, long destinationId, TransportationType type, int days) {
+        return addEdge(id, originId, destinationId, type, days, RouteGraph.NO_TIME, RouteGraph.NO_TIME);
+    }
+
+    /**
+     * Adds an edge with a schedule given as minutes of the day. An edge with only one of the two times
+     * is treated as unscheduled, see {@link RouteGraph#NO_TIME}.
+     */
+    public RouteGraphBuilder addEdge(long id, long originId, long destinationId, TransportationType type, int days,
+                                     int departure, int arrival) {
+        if ((departure == RouteGraph.NO_TIME) != (arrival == RouteGraph.NO_TIME)) {
+            departure = RouteGraph.NO_TIME;
+            arrival = RouteGraph.NO_TIME;
+        }
+        edges.put(id, new Edge(id, originId, destinationId, type, days, departure, arrival));
+        return this;
+    }
+
+    public RouteGraph build(long version) {
+        List<Location> sortedLocations = new ArrayList<>(locations.values());
+        sortedLocations.sort(Comparator.comparing(Location::getId));
+
+        int nodeCount = sortedLocations.size();
+        Location[] nodeLocations = sortedLocations.toArray(new Location[0]);
+        Map<Long, Integer> nodesById = new HashMap<>(nodeCount * 2);
+        Map<String, Integer> nodesByCode = new HashMap<>(nodeCount * 2);
+        for (int node = 0; node < nodeCount; node++) {
+            nodesById.put(nodeLocations[node].getId(), node);
+            nodesByCode.put(nodeLocations[node].getLocationCode(), node);
+        }
+
+        List<Edge> sortedEdges = new ArrayList<>(edges.size());
+        for (Edge edge : edges.values()) {
+            if (nodesById.containsKey(edge.originId()) && nodesById.containsKey(edge.destinationId())) {
+                sortedEdges.add(edge);
+            }
+        }
+        sortedEdges.sort(Comparator.comparingLong(Edge::id));
+
+        int edgeCount = sortedEdges.size();
+        int[] edgeOffsets = new int[nodeCount + 1];
+        for (Edge edge : sortedEdges) {
+            edgeOffsets[nodesById.get(edge.originId()) + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            edgeOffsets[node + 1] += edgeOffsets[node];
+        }
+
+        int[] cursor = edgeOffsets.clone();
+        int[] edgeSources = new int[edgeCount];
+        int[] edgeTargets = new int[edgeCount];
+        long[] edgeIds = new long[edgeCount];
+        byte[] edgeTypes = new byte[edgeCount];
+        byte[] edgeDays = new byte[edgeCount];
+        short[] edgeDepartures = new short[edgeCount];
+        short[] edgeArrivals = new short[edgeCount];
+        long[] sortedEdgeIds = new long[edgeCount];
+        int[] edgesBySortedId = new int[edgeCount];
+        for (int rank = 0; rank < edgeCount; rank++) {
+            Edge edge = sortedEdges.get(rank);
+            int source = nodesById.get(edge.originId());
+            int slot = cursor[source]++;
+            sortedEdgeIds[rank] = edge.id();
+            edgesBySortedId[rank] = slot;
+            edgeSources[slot] = source;
+            edgeTargets[slot] = nodesById.get(edge.destinationId());
+            edgeIds[slot] = edge.id();
+            edgeTypes[slot] = (byte) edge.type().ordinal();
+            edgeDays[slot] = (byte) edge.days();
+            edgeDepartures[slot] = (short) edge.departure();
+            edgeArrivals[slot] = (short) edge.arrival();
+        }
+
+        int[] inEdgeOffsets = new int[nodeCount + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            inEdgeOffsets[edgeTargets[edge] + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            inEdgeOffsets[node + 1] += inEdgeOffsets[node];
+        }
+        int[] inCursor = inEdgeOffsets.clone();
+        int[] inEdges = new int[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            inEdges[inCursor[edgeTargets[edge]]++] = edge;
+        }
+
+        RouteGraph.DayView[] dayViews = new RouteGraph.DayView[7];
+        for (int day = 0; day < 7; day++) {
+            dayViews[day] = buildDayView(1 << day, edgeOffsets, edgeDays, inEdgeOffsets, inEdges);
+        }
+
+        return new RouteGraph(version, nodeLocations, nodesByCode, edgeOffsets,
+                edgeSources, edgeTargets, edgeIds, edgeTypes, edgeDays, edgeDepartures, edgeArrivals,
+                inEdgeOffsets, inEdges, dayViews, sortedEdgeIds, edgesBySortedId);
+    }
+
+    static RouteGraph.DayView buildDayView(int dayBit, int[] edgeOffsets, byte[] edgeDays,
+                                           int[] inEdgeOffsets, int[] inEdges) {
+        int nodeCount = edgeOffsets.length - 1;
+        int dayEdgeCount = 0;
+        for (byte days : edgeDays) {
+            if ((days & dayBit) != 0) {
+                dayEdgeCount++;
+            }
+        }
+
+        int[] dayEdgeOffsets = new int[nodeCount + 1];
+        int[] dayEdges = new int[dayEdgeCount];
+        int[] dayInEdgeOffsets = new int[nodeCount + 1];
+        int[] dayInEdges = new int[dayEdgeCount];
+        int out = 0;
+        int in = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            for (int edge = edgeOffsets[node]; edge < edgeOffsets[node + 1]; edge++) {
+                if ((edgeDays[edge] & dayBit) != 0) {
+                    dayEdges[out++] = edge;
+                }
+            }
+            dayEdgeOffsets[node + 1] = out;
+            for (int position = inEdgeOffsets[node]; position < inEdgeOffsets[node + 1]; position++) {
+                if ((edgeDays[inEdges[position]] & dayBit) != 0) {
+                    dayInEdges[in++] = inEdges[position];
+                }
+            }
+            dayInEdgeOffsets[node + 1] = in;
+        }
+        return new RouteGraph.DayView(dayEdgeOffsets, dayEdges, dayInEdgeOffsets, dayInEdges);
+    }
+
+    private record Edge(long id, long originId, long destinationId, TransportationType type, int days,
+                        int departure, int arrival) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.ttech.graph;
+
+import com.ttech.model.Location;
+import com.ttech.model.OperatingDays;
+import com.ttech.model.Transportation;
+import com.ttech.model.Transportation.TransportationType;
+
+/**
+ * A committed mutation of the transportation network, published by the services as an application
+ * event. Each change carries its own copy of the data so later entity edits cannot leak into a snapshot.
+ */
+public sealed interface RouteGraphChange {
+
+    record LocationSaved(Location location) implements RouteGraphChange {
+    }
+
+    record LocationDeleted(long locationId) implements RouteGraphChange {
+    }
+
+    /**
+     * Departure and arrival are minutes of the day, or {@link RouteGraph#NO_TIME} when unscheduled.
+     */
+    record TransportationSaved(long transportationId, long originId, long destinationId,
+                               TransportationType type, int days, int departure, int arrival)
+            implements RouteGraphChange {
+    }
+
+    record TransportationDeleted(long transportationId) implements RouteGraphChange {
+    }
+
+    static RouteGraphChange locationSaved(Location location) {
+        Location copy = new Location();
+        copy.setId(location.getId());
+        copy.setName(location.getName());
+        copy.setCountry(location.getCountry());
+        copy.setCity(location.getCity());
+        copy.setLocationCode(location.getLocationCode());
+        copy.setMinConnectionMinutes(location.getMinConnectionMinutes());
+        return new LocationSaved(copy);
+    }
+
+    static RouteGraphChange locationDeleted(Long locationId) {
+        return new LocationDeleted(locationId);
+    }
+
+    static RouteGraphChange transportationSaved(Transportation transportation) {
+        return new TransportationSaved(transportation.getId(),
+                transportation.getOriginLocation().getId(),
+                transportation.getDestinationLocation().getId(),
+                transportation.getTransportationType(),
+                OperatingDays.toMask(transportation.getOperatingDays()),
+                RouteGraph.minuteOfDay(transportation.getDepartureTime()),
+                RouteGraph.minuteOfDay(transportation.getArrivalTime()));
+    }
+
+    static RouteGraphChange transportationDeleted(Long transportationId) {
+        return new TransportationDeleted(transportationId);
+    }
+}
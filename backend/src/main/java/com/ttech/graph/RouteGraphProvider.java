@@ -0,0 +1,189 @@
+package com.ttech.graph;
+
+import com.ttech.config.RouteSearchProperties;
+import com.ttech.repository.LocationRepository;
+import com.ttech.repository.TransportationEdge;
+import com.ttech.repository.TransportationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Owns the current {@link RouteGraph}. The snapshot is loaded from the database once at startup
+ * and route searches read it without touching the repositories. Updates build a new snapshot
+ * and publish it with a single reference swap, so readers never block or see partial changes.
+ * Every swap is announced with a {@link RouteGraphUpdatedEvent}, delivered while the swap lock is held
+ * so listeners see updates in version order.
+ * <p>
+ * Every database load is also saved as a {@link RouteGraphSnapshot} tagged with the network revision read
+ * before it, and {@link RouteGraphUpdater} saves it again after incremental updates. At startup the snapshot
+ * is used instead of the database while that revision is still current.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RouteGraphProvider {
+
+    private final LocationRepository locationRepository;
+    private final TransportationRepository transportationRepository;
+    private final RouteSearchProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicReference<RouteGraph> current = new AtomicReference<>();
+    // A lock rather than synchronized: reload queries the database, which would pin a virtual thread's carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    // Revision of the last snapshot read or written, guarded by the lock
+    private long snapshotRevision = -1;
+
+    public RouteGraph current() {
+        RouteGraph graph = current.get();
+        return graph != null ? graph : loadIfAbsent();
+    }
+
+    /**
+     * The current graph, or null while none is loaded yet. Never touches the database.
+     */
+    public RouteGraph installed() {
+        return current.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        loadIfAbsent();
+    }
+
+    public RouteGraph reload() {
+        lock.lock();
+        try {
+            RouteGraph previous = current.get();
+            // Read before loading: a change committed meanwhile then leaves the snapshot stale, never wrong
+            long revision = transportationRepository.findNetworkRevision();
+            RouteGraphBuilder builder = new RouteGraphBuilder();
+            locationRepository.findAll().forEach(builder::addLocation);
+            for (TransportationEdge edge : transportationRepository.findAllEdges()) {
+                builder.addEdge(edge.id(), edge.originId(), edge.destinationId(), edge.type(),
+                        edge.operatingDaysMask(), RouteGraph.minuteOfDay(edge.departureTime()),
+                        RouteGraph.minuteOfDay(edge.arrivalTime()));
+            }
+            RouteGraph graph = builder.build(previous != null ? previous.getVersion() + 1 : 1L);
+            writeSnapshot(graph, revision);
+            current.set(graph);
+            eventPublisher.publishEvent(new RouteGraphUpdatedEvent(previous, graph, null));
+            return graph;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes a graph built elsewhere current, e.g. one generated for benchmarks.
+     */
+    public void install(RouteGraph graph) {
+        lock.lock();
+        try {
+            RouteGraph previous = current.get();
+            current.set(graph);
+            eventPublisher.publishEvent(new RouteGraphUpdatedEvent(previous, graph, null));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public RouteGraph apply(List<RouteGraphChange> changes) {
+        lock.lock();
+        try {
+            RouteGraph previous = current();
+            RouteGraphBuilder builder = RouteGraphBuilder.from(previous);
+            changes.forEach(builder::apply);
+            RouteGraph graph = builder.build(previous.getVersion() + 1);
+            current.set(graph);
+            eventPublisher.publishEvent(new RouteGraphUpdatedEvent(previous, graph, changes));
+            return graph;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long networkRevision() {
+        return transportationRepository.findNetworkRevision();
+    }
+
+    /**
+     * Saves the current graph as the snapshot of {@code revision}, which the caller guarantees it holds every
+     * change of. Does nothing when no graph is loaded or the last snapshot is already at that revision or later.
+     */
+    public void saveSnapshot(long revision) {
+        lock.lock();
+        try {
+            RouteGraph graph = current.get();
+            if (graph != null && revision > snapshotRevision) {
+                writeSnapshot(graph, revision);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private RouteGraph loadIfAbsent() {
+        lock.lock();
+        try {
+            RouteGraph graph = current.get();
+            if (graph != null) {
+                return graph;
+            }
+            graph = loadSnapshot();
+            if (graph == null) {
+                return reload();
+            }
+            current.set(graph);
+            eventPublisher.publishEvent(new RouteGraphUpdatedEvent(null, graph, null));
+            return graph;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private RouteGraph loadSnapshot() {
+        if (!properties.getSnapshot().isEnabled()) {
+            return null;
+        }
+        Path path = properties.getSnapshot().getPath();
+        try {
+            long revision = transportationRepository.findNetworkRevision();
+            RouteGraph graph = RouteGraphSnapshot.read(path, revision, 1L);
+            if (graph == null) {
+                log.info("No route graph snapshot at {} matches the network, loading it from the database", path);
+            } else {
+                log.info("Loaded route graph of {} locations and {} transportations from {}",
+                        graph.nodeCount(), graph.edgeCount(), path);
+                snapshotRevision = revision;
+            }
+            return graph;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read route graph snapshot {}, loading it from the database", path, e);
+            return null;
+        }
+    }
+
+    private void writeSnapshot(RouteGraph graph, long revision) {
+        if (!properties.getSnapshot().isEnabled()) {
+            return;
+        }
+        Path path = properties.getSnapshot().getPath();
+        try {
+            RouteGraphSnapshot.write(graph, revision, path);
+            snapshotRevision = revision;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to save route graph snapshot {}", path, e);
+        }
+    }
+}
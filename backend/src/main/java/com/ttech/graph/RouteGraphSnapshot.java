@@ -0,0 +1,310 @@
+package com.ttech.graph;
+
+import com.ttech.model.Location;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary file format for a {@link RouteGraph}, so a restart can skip loading the network through JPA.
+ * A fixed header carries a magic number, the format version, the network revision the graph was built
+ * at, the section sizes and a CRC32C of the payload. The payload holds a string pool, the node table
+ * (location ids, string references and minimum connection times) and the graph's CSR arrays, all
+ * little-endian. Day views and lookup maps are derived again on load.
+ * <p>
+ * Files are written next to their destination and moved into place, so a reader only ever sees a
+ * complete snapshot. Reading maps the file and bulk-copies each section into the graph's arrays.
+ */
+public final class RouteGraphSnapshot {
+
+    private static final int MAGIC = 0x52475348;
+    private static final int FORMAT_VERSION = 1;
+    // Magic, format version, network revision, node count, edge count, string count, string bytes, checksum
+    private static final int HEADER_BYTES = 36;
+    private static final int NO_STRING = -1;
+    private static final int NO_MINIMUM = -1;
+
+    private RouteGraphSnapshot() {
+    }
+
+    /**
+     * Writes {@code graph} to {@code path}, replacing any previous snapshot atomically.
+     */
+    public static void write(RouteGraph graph, long networkRevision, Path path) throws IOException {
+        int nodeCount = graph.nodeCount();
+        int edgeCount = graph.edgeCount();
+        StringPool strings = new StringPool();
+        int[] stringRefs = new int[4 * nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            Location location = graph.location(node);
+            stringRefs[4 * node] = strings.add(location.getName());
+            stringRefs[4 * node + 1] = strings.add(location.getCountry());
+            stringRefs[4 * node + 2] = strings.add(location.getCity());
+            stringRefs[4 * node + 3] = strings.add(location.getLocationCode());
+        }
+        long size = HEADER_BYTES + payloadBytes(nodeCount, edgeCount, strings.count(), strings.bytes());
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("A route graph snapshot of " + size + " bytes is too large");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(HEADER_BYTES);
+        strings.writeTo(buffer);
+        for (int node = 0; node < nodeCount; node++) {
+            buffer.putLong(graph.location(node).getId());
+        }
+        for (int ref : stringRefs) {
+            buffer.putInt(ref);
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            Integer minConnectionMinutes = graph.location(node).getMinConnectionMinutes();
+            buffer.putInt(minConnectionMinutes != null ? minConnectionMinutes : NO_MINIMUM);
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            buffer.putInt(graph.firstEdge(node));
+        }
+        buffer.putInt(edgeCount);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            buffer.putInt(graph.target(edge));
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            buffer.putLong(graph.transportationId(edge));
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            buffer.put((byte) graph.type(edge).ordinal());
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            buffer.put((byte) graph.days(edge));
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            buffer.putShort((short) graph.departure(edge));
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            buffer.putShort((short) graph.arrival(edge));
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            buffer.putInt(graph.firstInEdge(node));
+        }
+        buffer.putInt(edgeCount);
+        for (int position = 0; position < edgeCount; position++) {
+            buffer.putInt(graph.inEdge(position));
+        }
+        for (int rank = 0; rank < edgeCount; rank++) {
+            buffer.putInt(graph.edgeByRank(rank));
+        }
+
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.array(), HEADER_BYTES, (int) size - HEADER_BYTES);
+        buffer.putInt(0, MAGIC)
+                .putInt(4, FORMAT_VERSION)
+                .putLong(8, networkRevision)
+                .putInt(16, nodeCount)
+                .putInt(20, edgeCount)
+                .putInt(24, strings.count())
+                .putInt(28, strings.bytes())
+                .putInt(32, (int) checksum.getValue());
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the snapshot at {@code path} as a graph with the given version. Returns null when there is no
+     * snapshot, or it has another format, was built at another network revision or fails its checksum.
+     */
+    public static RouteGraph read(Path path, long networkRevision, long version) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+                    || buffer.getLong(8) != networkRevision) {
+                return null;
+            }
+            int nodeCount = buffer.getInt(16);
+            int edgeCount = buffer.getInt(20);
+            int stringCount = buffer.getInt(24);
+            int stringBytes = buffer.getInt(28);
+            if (nodeCount < 0 || edgeCount < 0 || stringCount < 0 || stringBytes < 0
+                    || size != HEADER_BYTES + payloadBytes(nodeCount, edgeCount, stringCount, stringBytes)) {
+                return null;
+            }
+            CRC32C checksum = new CRC32C();
+            checksum.update(buffer.slice(HEADER_BYTES, (int) size - HEADER_BYTES));
+            if ((int) checksum.getValue() != buffer.getInt(32)) {
+                return null;
+            }
+            buffer.position(HEADER_BYTES);
+            return decode(buffer, version, nodeCount, edgeCount, stringCount, stringBytes);
+        }
+    }
+
+    private static long payloadBytes(int nodeCount, int edgeCount, int stringCount, int stringBytes) {
+        long strings = 4L * (stringCount + 1) + stringBytes;
+        long nodes = 28L * nodeCount;
+        long offsets = 8L * (nodeCount + 1);
+        // Target, id, type, days, departure, arrival, incoming edge and id rank
+        long edges = 26L * edgeCount;
+        return strings + nodes + offsets + edges;
+    }
+
+    private static RouteGraph decode(ByteBuffer buffer, long version, int nodeCount, int edgeCount,
+                                     int stringCount, int stringBytes) {
+        int[] stringOffsets = ints(buffer, stringCount + 1);
+        byte[] stringData = bytes(buffer, stringBytes);
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = new String(stringData, stringOffsets[i], stringOffsets[i + 1] - stringOffsets[i],
+                    StandardCharsets.UTF_8);
+        }
+
+        long[] locationIds = longs(buffer, nodeCount);
+        int[] stringRefs = ints(buffer, 4 * nodeCount);
+        int[] minConnectionMinutes = ints(buffer, nodeCount);
+        Location[] locations = new Location[nodeCount];
+        Map<String, Integer> nodesByCode = new HashMap<>(nodeCount * 2);
+        for (int node = 0; node < nodeCount; node++) {
+            Location location = new Location();
+            location.setId(locationIds[node]);
+            location.setName(string(strings, stringRefs[4 * node]));
+            location.setCountry(string(strings, stringRefs[4 * node + 1]));
+            location.setCity(string(strings, stringRefs[4 * node + 2]));
+            location.setLocationCode(string(strings, stringRefs[4 * node + 3]));
+            location.setMinConnectionMinutes(minConnectionMinutes[node] != NO_MINIMUM
+                    ? minConnectionMinutes[node] : null);
+            locations[node] = location;
+            nodesByCode.put(location.getLocationCode(), node);
+        }
+
+        int[] edgeOffsets = ints(buffer, nodeCount + 1);
+        int[] edgeTargets = ints(buffer, edgeCount);
+        long[] edgeIds = longs(buffer, edgeCount);
+        byte[] edgeTypes = bytes(buffer, edgeCount);
+        byte[] edgeDays = bytes(buffer, edgeCount);
+        short[] edgeDepartures = shorts(buffer, edgeCount);
+        short[] edgeArrivals = shorts(buffer, edgeCount);
+        int[] inEdgeOffsets = ints(buffer, nodeCount + 1);
+        int[] inEdges = ints(buffer, edgeCount);
+        int[] edgesBySortedId = ints(buffer, edgeCount);
+
+        int[] edgeSources = new int[edgeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            Arrays.fill(edgeSources, edgeOffsets[node], edgeOffsets[node + 1], node);
+        }
+        long[] sortedEdgeIds = new long[edgeCount];
+        for (int rank = 0; rank < edgeCount; rank++) {
+            sortedEdgeIds[rank] = edgeIds[edgesBySortedId[rank]];
+        }
+        RouteGraph.DayView[] dayViews = new RouteGraph.DayView[7];
+        for (int day = 0; day < 7; day++) {
+            dayViews[day] = RouteGraphBuilder.buildDayView(1 << day, edgeOffsets, edgeDays, inEdgeOffsets, inEdges);
+        }
+
+        return new RouteGraph(version, locations, nodesByCode, edgeOffsets,
+                edgeSources, edgeTargets, edgeIds, edgeTypes, edgeDays, edgeDepartures, edgeArrivals,
+                inEdgeOffsets, inEdges, dayViews, sortedEdgeIds, edgesBySortedId);
+    }
+
+    private static String string(String[] strings, int ref) {
+        return ref != NO_STRING ? strings[ref] : null;
+    }
+
+    private static int[] ints(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+
+    private static long[] longs(ByteBuffer buffer, int count) {
+        long[] values = new long[count];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + 8 * count);
+        return values;
+    }
+
+    private static short[] shorts(ByteBuffer buffer, int count) {
+        short[] values = new short[count];
+        buffer.asShortBuffer().get(values);
+        buffer.position(buffer.position() + 2 * count);
+        return values;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer, int count) {
+        byte[] values = new byte[count];
+        buffer.get(values);
+        return values;
+    }
+
+    /**
+     * Distinct strings in first-use order, stored as an offset table followed by their UTF-8 bytes.
+     */
+    private static final class StringPool {
+
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private int bytes;
+
+        int add(String value) {
+            if (value == null) {
+                return NO_STRING;
+            }
+            return refs.computeIfAbsent(value, key -> {
+                byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+                values.add(encoded);
+                bytes += encoded.length;
+                return values.size() - 1;
+            });
+        }
+
+        int count() {
+            return values.size();
+        }
+
+        int bytes() {
+            return bytes;
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            int offset = 0;
+            buffer.putInt(offset);
+            for (byte[] value : values) {
+                offset += value.length;
+                buffer.putInt(offset);
+            }
+            for (byte[] value : values) {
+                buffer.put(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.ttech.graph;
+
+import java.util.List;
+
+/**
+ * Published whenever a new {@link RouteGraph} becomes current. {@code changes} lists the applied
+ * network changes, or is {@code null} when the graph was reloaded from the database.
+ */
+public record RouteGraphUpdatedEvent(RouteGraph previous, RouteGraph current, List<RouteGraphChange> changes) {
+}
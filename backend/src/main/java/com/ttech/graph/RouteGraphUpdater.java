@@ -0,0 +1,134 @@
+package com.ttech.graph;
+
+import com.ttech.config.RouteSearchProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies committed {@link RouteGraphChange}s to the route graph. Changes are queued after commit and
+ * drained in batches by a single background thread, so a burst of writes costs one snapshot rebuild.
+ * <p>
+ * After a batch the network revision is read and the {@link RouteGraphSnapshot} on disk rewritten with that
+ * tag once {@code route.search.snapshot.rewrite-delay} has passed. Whatever was queued by then is applied
+ * first: a change committed before the revision was read has been published well within the delay, so the
+ * graph holds every change up to that revision. Changes committed after it only leave the snapshot stale.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RouteGraphUpdater {
+
+    private final RouteGraphProvider routeGraphProvider;
+    private final MeterRegistry meterRegistry;
+    private final RouteSearchProperties properties;
+
+    private final Queue<PendingChange> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicBoolean snapshotScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "route-graph-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile long applyingSince;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("route.graph.staleness", this, RouteGraphUpdater::getStalenessMillis)
+                .description("Age of the oldest committed change not yet visible to route search")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        // Scrapes must not load the graph, so there is no version until startup has loaded it
+        Gauge.builder("route.graph.version", routeGraphProvider, provider -> {
+                    RouteGraph graph = provider.installed();
+                    return graph != null ? graph.getVersion() : Double.NaN;
+                })
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(RouteGraphChange change) {
+        pending.add(new PendingChange(change, System.currentTimeMillis()));
+        if (drainScheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    public long getStalenessMillis() {
+        long oldest = applyingSince;
+        if (oldest == 0) {
+            PendingChange head = pending.peek();
+            oldest = head != null ? head.committedAt() : 0;
+        }
+        return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        List<RouteGraphChange> batch = new ArrayList<>();
+        PendingChange change;
+        while ((change = pending.poll()) != null) {
+            if (batch.isEmpty()) {
+                applyingSince = change.committedAt();
+            }
+            batch.add(change.change());
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            RouteGraph graph = routeGraphProvider.apply(batch);
+            log.debug("Applied {} network changes, route graph is now at version {}", batch.size(), graph.getVersion());
+            scheduleSnapshot();
+        } catch (RuntimeException e) {
+            log.error("Failed to apply {} network changes, reloading route graph", batch.size(), e);
+            routeGraphProvider.reload();
+        } finally {
+            applyingSince = 0;
+        }
+    }
+
+    private void scheduleSnapshot() {
+        if (!properties.getSnapshot().isEnabled() || !snapshotScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long revision = routeGraphProvider.networkRevision();
+            executor.schedule(() -> saveSnapshot(revision), properties.getSnapshot().getRewriteDelay().toMillis(),
+                    TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            snapshotScheduled.set(false);
+            log.warn("Failed to read the network revision, route graph snapshot not rewritten", e);
+        }
+    }
+
+    private void saveSnapshot(long revision) {
+        snapshotScheduled.set(false);
+        drain();
+        routeGraphProvider.saveSnapshot(revision);
+    }
+
+    private record PendingChange(RouteGraphChange change, long committedAt) {
+    }
+}
@@ -0,0 +1,276 @@
+package com.ttech.graph;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+
+/**
+ * Every valid route of one {@link RouteGraph}, precomputed per weekday and origin. An origin's routes are
+ * grouped by destination, each group in the order {@link RouteFinder#findRoutes} emits it, and packed into
+ * primitive arrays: the sorted destination nodes, an offset table into the routes and three transportation
+ * ids per route. Weekdays on which an origin has the same routes share one block.
+ * <p>
+ * Blocks hold transportation ids rather than edges, which move whenever the snapshot is rebuilt, so
+ * {@link #update} can carry the blocks of origins a change did not affect over to the next snapshot and
+ * rebuild only the others. Node ids stay put as long as no location changes.
+ */
+public final class RouteIndex {
+
+    private static final int DAYS = 7;
+    private static final Block EMPTY = new Block(new int[0], new int[]{0}, new long[0]);
+
+    private final long graphVersion;
+    // Indexed by origin, then day
+    private final Block[][] blocks;
+    private final long routeCount;
+
+    private RouteIndex(long graphVersion, Block[][] blocks, long routeCount) {
+        this.graphVersion = graphVersion;
+        this.blocks = blocks;
+        this.routeCount = routeCount;
+    }
+
+    /**
+     * Indexes every origin of {@code graph}, in parallel on {@code pool}. Fails with {@link TooLargeException}
+     * as soon as more than {@code maxRoutes} routes would be stored.
+     */
+    public static RouteIndex build(RouteGraph graph, ForkJoinPool pool, long maxRoutes) {
+        return build(graph, new Block[graph.nodeCount()][], origin -> true, pool, maxRoutes);
+    }
+
+    /**
+     * Indexes {@code graph} by rebuilding only the origins {@code affected} accepts and reusing this index's
+     * blocks for the rest. The graph must have the same locations as the one this index was built for.
+     */
+    public RouteIndex update(RouteGraph graph, IntPredicate affected, ForkJoinPool pool, long maxRoutes) {
+        if (graph.nodeCount() != blocks.length) {
+            return build(graph, pool, maxRoutes);
+        }
+        return build(graph, blocks.clone(), affected, pool, maxRoutes);
+    }
+
+    private static RouteIndex build(RouteGraph graph, Block[][] blocks, IntPredicate rebuild, ForkJoinPool pool,
+                                    long maxRoutes) {
+        AtomicLong stored = new AtomicLong();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int origin = 0; origin < graph.nodeCount(); origin++) {
+            if (rebuild.test(origin)) {
+                int node = origin;
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    blocks[node] = indexOrigin(graph, node);
+                    if (stored.addAndGet(routeCount(blocks[node])) > maxRoutes) {
+                        throw new TooLargeException(maxRoutes);
+                    }
+                }));
+            } else if (stored.addAndGet(routeCount(blocks[origin])) > maxRoutes) {
+                throw new TooLargeException(maxRoutes);
+            }
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        return new RouteIndex(graph.getVersion(), blocks, stored.get());
+    }
+
+    public long getGraphVersion() {
+        return graphVersion;
+    }
+
+    /**
+     * Routes stored, counting a block shared by several weekdays once.
+     */
+    public long getRouteCount() {
+        return routeCount;
+    }
+
+    /**
+     * Passes the first {@code limit} routes from {@code origin} to {@code destination} to {@code consumer}
+     * as edges of {@code graph}, which must be the graph this index was built for.
+     */
+    public void forEachRoute(RouteGraph graph, DayOfWeek dayOfWeek, int origin, int destination, int limit,
+                             RouteFinder.RouteConsumer consumer, SearchStats stats) {
+        Block block = blocks[origin][dayOfWeek.getValue() - 1];
+        int position = Arrays.binarySearch(block.destinations(), destination);
+        if (position < 0) {
+            return;
+        }
+        int first = block.offsets()[position];
+        int end = (int) Math.min(block.offsets()[position + 1], (long) first + limit);
+        long[] legs = block.legs();
+        stats.edgesScanned += end - first;
+        for (int route = first; route < end; route++) {
+            consumer.accept(edgeOf(graph, legs[3 * route]), edgeOf(graph, legs[3 * route + 1]),
+                    edgeOf(graph, legs[3 * route + 2]));
+        }
+    }
+
+    private static int edgeOf(RouteGraph graph, long transportationId) {
+        return transportationId == RouteFinder.NO_LEG ? RouteFinder.NO_LEG : graph.edgeOf(transportationId);
+    }
+
+    private static Block[] indexOrigin(RouteGraph graph, int origin) {
+        Block[] days = new Block[DAYS];
+        RouteBuffer buffer = new RouteBuffer(graph.nodeCount());
+        for (int day = 0; day < DAYS; day++) {
+            Block block = indexDay(graph, graph.onDay(DayOfWeek.of(day + 1)), origin, buffer);
+            for (int earlier = 0; earlier < day; earlier++) {
+                if (days[earlier].sameRoutes(block)) {
+                    block = days[earlier];
+                    break;
+                }
+            }
+            days[day] = block;
+        }
+        return days;
+    }
+
+    private static long routeCount(Block[] days) {
+        long count = 0;
+        for (int day = 0; day < DAYS; day++) {
+            if (day == 0 || days[day] != days[day - 1]) {
+                count += days[day].legs().length / 3;
+            }
+        }
+        return count;
+    }
+
+    // Walks the same stages as RouteFinder.findRoutes, but lets every landing and ground leg end a route
+    private static Block indexDay(RouteGraph graph, RouteGraph.DayView day, int origin, RouteBuffer buffer) {
+        buffer.clear();
+        for (int i = day.firstEdge(origin); i < day.endEdge(origin); i++) {
+            int edge = day.edge(i);
+            if (graph.isFlight(edge)) {
+                addLanding(graph, day, origin, RouteFinder.NO_LEG, RouteFinder.NO_LEG, edge, buffer);
+                continue;
+            }
+            int transfer = graph.target(edge);
+            if (transfer == origin) {
+                continue;
+            }
+            for (int j = day.firstEdge(transfer); j < day.endEdge(transfer); j++) {
+                int flight = day.edge(j);
+                if (graph.isFlight(flight)) {
+                    addLanding(graph, day, origin, transfer, edge, flight, buffer);
+                }
+            }
+        }
+        return buffer.toBlock(graph);
+    }
+
+    private static void addLanding(RouteGraph graph, RouteGraph.DayView day, int origin, int transfer,
+                                   int groundBefore, int flight, RouteBuffer buffer) {
+        int landing = graph.target(flight);
+        if (landing == origin || landing == transfer) {
+            return;
+        }
+        buffer.add(landing, groundBefore, flight, RouteFinder.NO_LEG);
+        for (int i = day.firstEdge(landing); i < day.endEdge(landing); i++) {
+            int groundAfter = day.edge(i);
+            int destination = graph.target(groundAfter);
+            if (!graph.isFlight(groundAfter) && destination != origin && destination != landing
+                    && destination != transfer) {
+                buffer.add(destination, groundBefore, flight, groundAfter);
+            }
+        }
+    }
+
+    /**
+     * One origin's routes on one day. Destinations are sorted; the routes to {@code destinations[i]} are
+     * {@code offsets[i]} to {@code offsets[i + 1]}, each three transportation ids or {@link RouteFinder#NO_LEG}.
+     */
+    private record Block(int[] destinations, int[] offsets, long[] legs) {
+
+        boolean sameRoutes(Block other) {
+            return Arrays.equals(destinations, other.destinations) && Arrays.equals(offsets, other.offsets)
+                    && Arrays.equals(legs, other.legs);
+        }
+    }
+
+    /**
+     * Routes in search order, grouped by destination into a {@link Block} with a stable counting sort.
+     */
+    private static final class RouteBuffer {
+
+        private final int[] counts;
+        private int[] destinations = new int[64];
+        private int[] legs = new int[3 * 64];
+        private int size;
+
+        RouteBuffer(int nodeCount) {
+            counts = new int[nodeCount];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(int destination, int groundBefore, int flight, int groundAfter) {
+            if (size == destinations.length) {
+                destinations = Arrays.copyOf(destinations, size * 2);
+                legs = Arrays.copyOf(legs, size * 6);
+            }
+            destinations[size] = destination;
+            legs[3 * size] = groundBefore;
+            legs[3 * size + 1] = flight;
+            legs[3 * size + 2] = groundAfter;
+            size++;
+        }
+
+        Block toBlock(RouteGraph graph) {
+            if (size == 0) {
+                return EMPTY;
+            }
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (counts[destinations[i]]++ == 0) {
+                    distinct++;
+                }
+            }
+            int[] sortedDestinations = new int[distinct];
+            int[] offsets = new int[distinct + 1];
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                if (counts[destinations[i]] > 0) {
+                    sortedDestinations[next++] = destinations[i];
+                    // Negative marks the destination as collected until its start is known
+                    counts[destinations[i]] = -counts[destinations[i]];
+                }
+            }
+            Arrays.sort(sortedDestinations);
+            for (int i = 0; i < distinct; i++) {
+                int destination = sortedDestinations[i];
+                offsets[i + 1] = offsets[i] - counts[destination];
+                counts[destination] = offsets[i];
+            }
+
+            long[] packed = new long[3 * size];
+            for (int i = 0; i < size; i++) {
+                int slot = 3 * counts[destinations[i]]++;
+                packed[slot] = transportationId(graph, legs[3 * i]);
+                packed[slot + 1] = transportationId(graph, legs[3 * i + 1]);
+                packed[slot + 2] = transportationId(graph, legs[3 * i + 2]);
+            }
+            for (int destination : sortedDestinations) {
+                counts[destination] = 0;
+            }
+            return new Block(sortedDestinations, offsets, packed);
+        }
+
+        private static long transportationId(RouteGraph graph, int edge) {
+            return edge == RouteFinder.NO_LEG ? RouteFinder.NO_LEG : graph.transportationId(edge);
+        }
+    }
+
+    /**
+     * Thrown when an index would hold more routes than allowed.
+     */
+    public static final class TooLargeException extends RuntimeException {
+
+        TooLargeException(long maxRoutes) {
+            super("The route index would hold more than " + maxRoutes + " routes");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.ttech.graph;
+
+import com.ttech.config.RouteSearchProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps a {@link RouteIndex} of the current {@link RouteGraph}. Every graph update is indexed in the
+ * background by a single thread, in version order: incrementally when the update lists its changes and
+ * the index is at the previous version, from scratch otherwise. Until the index catches up with the
+ * current graph, {@link #current} returns null and searches run against the graph.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RouteIndexProvider {
+
+    private final RouteSearchProperties properties;
+    private final ForkJoinPool routeIndexForkJoinPool;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicReference<RouteIndex> current = new AtomicReference<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "route-index-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("route.index.routes", current, index -> index.get() != null ? index.get().getRouteCount() : 0)
+                .description("Routes held by the route index")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the index of {@code graph}, or null when the index is disabled or not built for it yet.
+     */
+    public RouteIndex current(RouteGraph graph) {
+        RouteIndex index = current.get();
+        return index != null && index.getGraphVersion() == graph.getVersion() ? index : null;
+    }
+
+    @EventListener
+    public void onGraphUpdated(RouteGraphUpdatedEvent event) {
+        if (properties.getIndex().isEnabled()) {
+            executor.execute(() -> update(event));
+        }
+    }
+
+    private void update(RouteGraphUpdatedEvent event) {
+        RouteIndex previous = current.get();
+        RouteGraph graph = event.current();
+        if (previous != null && previous.getGraphVersion() == graph.getVersion()) {
+            return;
+        }
+        AffectedRoutes affected = AffectedRoutes.of(event);
+        boolean incremental = previous != null && !affected.isEverything()
+                && previous.getGraphVersion() == event.previous().getVersion();
+        long maxRoutes = properties.getIndex().getMaxRoutes();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            RouteIndex index = incremental
+                    ? previous.update(graph, origin -> affected.affectsOrigin(graph.location(origin).getLocationCode()),
+                            routeIndexForkJoinPool, maxRoutes)
+                    : RouteIndex.build(graph, routeIndexForkJoinPool, maxRoutes);
+            current.set(index);
+            log.debug("Indexed {} routes for route graph version {}", index.getRouteCount(), graph.getVersion());
+        } catch (RouteIndex.TooLargeException e) {
+            current.set(null);
+            log.warn("Route graph version {} is searched without an index: {}", graph.getVersion(), e.getMessage());
+        } catch (RuntimeException e) {
+            current.set(null);
+            log.error("Failed to index route graph version {}", graph.getVersion(), e);
+        } finally {
+            sample.stop(Timer.builder("route.index.build")
+                    .description("Time to bring the route index up to date with a new route graph")
+                    .tag("mode", incremental ? "incremental" : "full")
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ttech.graph;
+
+/**
+ * Work counters filled in by a {@link RouteFinder} search. Not thread-safe: use one instance per search.
+ */
+public final class SearchStats {
+
+    long nodesExpanded;
+    long edgesScanned;
+
+    /**
+     * Nodes whose outgoing legs were scanned: the origin and every transfer point.
+     */
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * Outgoing legs scanned at expanded nodes plus ground legs examined into the destination.
+     */
+    public long getEdgesScanned() {
+        return edgesScanned;
+    }
+
+    void add(SearchStats other) {
+        nodesExpanded += other.nodesExpanded;
+        edgesScanned += other.edgesScanned;
+    }
+}
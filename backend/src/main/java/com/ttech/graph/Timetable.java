@@ -0,0 +1,81 @@
+package com.ttech.graph;
+
+import java.util.Arrays;
+
+/**
+ * The scheduled edges of a {@link RouteGraph} that operate on one weekday, as connections ordered by
+ * departure (ties by edge). Times are minutes from the start of that day; an arrival after midnight is
+ * stored as {@code 1440} or more, so arrivals never precede their departure.
+ */
+public final class Timetable {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int[] edges;
+    private final int[] departures;
+    private final int[] arrivals;
+
+    private Timetable(int[] edges, int[] departures, int[] arrivals) {
+        this.edges = edges;
+        this.departures = departures;
+        this.arrivals = arrivals;
+    }
+
+    static Timetable build(RouteGraph graph, int dayBit) {
+        int count = 0;
+        long[] keys = new long[graph.edgeCount()];
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            if (graph.isScheduled(edge) && graph.operatesOn(edge, dayBit)) {
+                // Departure in the high half, edge in the low half: sorting orders by departure, then edge
+                keys[count++] = (long) graph.departure(edge) << 32 | edge;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+
+        int[] edges = new int[count];
+        int[] departures = new int[count];
+        int[] arrivals = new int[count];
+        for (int i = 0; i < count; i++) {
+            int edge = (int) keys[i];
+            int departure = graph.departure(edge);
+            int arrival = graph.arrival(edge);
+            edges[i] = edge;
+            departures[i] = departure;
+            arrivals[i] = arrival >= departure ? arrival : arrival + MINUTES_PER_DAY;
+        }
+        return new Timetable(edges, departures, arrivals);
+    }
+
+    public int size() {
+        return edges.length;
+    }
+
+    public int edge(int connection) {
+        return edges[connection];
+    }
+
+    public int departure(int connection) {
+        return departures[connection];
+    }
+
+    public int arrival(int connection) {
+        return arrivals[connection];
+    }
+
+    /**
+     * Returns the first connection departing at or after {@code minute}, or {@link #size()} when none does.
+     */
+    public int firstDepartingAt(int minute) {
+        int low = 0;
+        int high = departures.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (departures[middle] < minute) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
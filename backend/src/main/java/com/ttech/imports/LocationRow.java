@@ -0,0 +1,9 @@
+package com.ttech.imports;
+
+import com.ttech.model.Location;
+
+/**
+ * One parsed import row. {@code error} is set instead of {@code location} when the row could not be read.
+ */
+public record LocationRow(long number, Location location, String error) {
+}
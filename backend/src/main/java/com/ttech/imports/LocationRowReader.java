@@ -0,0 +1,104 @@
+package com.ttech.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ttech.constant.ExceptionMessages;
+import com.ttech.model.Location;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams locations out of an import body one row at a time.
+ */
+public interface LocationRowReader {
+
+    /**
+     * Returns the next row, or null at the end of the input. Blank lines are skipped.
+     */
+    LocationRow next() throws IOException;
+
+    /**
+     * CSV with a header row naming the {@code name}, {@code country}, {@code city} and
+     * {@code locationCode} columns in any order; other columns are ignored.
+     */
+    static LocationRowReader csv(BufferedReader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return () -> null;
+        }
+        int name = indexOf(header, "name");
+        int country = indexOf(header, "country");
+        int city = indexOf(header, "city");
+        int locationCode = indexOf(header, "locationcode", "location_code");
+        if (name < 0 || country < 0 || city < 0 || locationCode < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ExceptionMessages.IMPORT_MISSING_COLUMNS);
+        }
+
+        long[] number = {0};
+        return () -> {
+            List<String> fields;
+            do {
+                fields = csv.readRecord();
+                if (fields == null) {
+                    return null;
+                }
+                number[0]++;
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            Location location = new Location();
+            location.setName(field(fields, name));
+            location.setCountry(field(fields, country));
+            location.setCity(field(fields, city));
+            location.setLocationCode(field(fields, locationCode));
+            return new LocationRow(number[0], location, null);
+        };
+    }
+
+    /**
+     * One JSON location object per line, as accepted by the create endpoint.
+     */
+    static LocationRowReader ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        long[] number = {0};
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                number[0]++;
+            } while (line.isBlank());
+
+            try {
+                Location location = objectMapper.readValue(line, Location.class);
+                location.setId(null);
+                return new LocationRow(number[0], location, null);
+            } catch (JsonProcessingException e) {
+                return new LocationRow(number[0], null,
+                        String.format(ExceptionMessages.IMPORT_INVALID_JSON, e.getOriginalMessage()));
+            }
+        };
+    }
+
+    private static int indexOf(List<String> header, String... names) {
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+            for (String name : names) {
+                if (column.equals(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index).trim() : null;
+    }
+}
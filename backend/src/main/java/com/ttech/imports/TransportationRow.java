@@ -0,0 +1,19 @@
+package com.ttech.imports;
+
+import com.ttech.model.Transportation.TransportationType;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * One parsed transportation import row, keyed by location codes and departure time. {@code error} is set
+ * instead of the other fields when the row could not be read.
+ */
+public record TransportationRow(long number, String originLocationCode, String destinationLocationCode,
+                                TransportationType transportationType, List<Integer> operatingDays,
+                                LocalTime departureTime, LocalTime arrivalTime, String error) {
+
+    static TransportationRow invalid(long number, String error) {
+        return new TransportationRow(number, null, null, null, null, null, null, error);
+    }
+}
@@ -0,0 +1,156 @@
+package com.ttech.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ttech.constant.ExceptionMessages;
+import com.ttech.model.Transportation.TransportationType;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams transportations out of an import body one row at a time.
+ */
+public interface TransportationRowReader {
+
+    /**
+     * Returns the next row, or null at the end of the input. Blank lines are skipped.
+     */
+    TransportationRow next() throws IOException;
+
+    /**
+     * CSV with a header row naming the {@code originLocationCode}, {@code destinationLocationCode},
+     * {@code transportationType} and {@code operatingDays} columns in any order, plus optional
+     * {@code departureTime} and {@code arrivalTime} columns as {@code HH:mm}. Operating days are ISO day
+     * numbers separated by spaces, semicolons or pipes; an empty value means every day.
+     */
+    static TransportationRowReader csv(BufferedReader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return () -> null;
+        }
+        int origin = indexOf(header, "originlocationcode");
+        int destination = indexOf(header, "destinationlocationcode");
+        int type = indexOf(header, "transportationtype");
+        int days = indexOf(header, "operatingdays");
+        int departure = indexOf(header, "departuretime");
+        int arrival = indexOf(header, "arrivaltime");
+        if (origin < 0 || destination < 0 || type < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    ExceptionMessages.IMPORT_MISSING_TRANSPORTATION_COLUMNS);
+        }
+
+        long[] number = {0};
+        return () -> {
+            List<String> fields;
+            do {
+                fields = csv.readRecord();
+                if (fields == null) {
+                    return null;
+                }
+                number[0]++;
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            try {
+                return new TransportationRow(number[0], field(fields, origin), field(fields, destination),
+                        parseType(field(fields, type)), parseDays(field(fields, days)),
+                        parseTime("departureTime", field(fields, departure)),
+                        parseTime("arrivalTime", field(fields, arrival)), null);
+            } catch (IllegalArgumentException e) {
+                return TransportationRow.invalid(number[0], e.getMessage());
+            }
+        };
+    }
+
+    /**
+     * One JSON object per line with the same fields as the CSV columns; operating days as an array.
+     */
+    static TransportationRowReader ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        long[] number = {0};
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                number[0]++;
+            } while (line.isBlank());
+
+            try {
+                JsonRow record = objectMapper.readValue(line, JsonRow.class);
+                return new TransportationRow(number[0], record.originLocationCode(),
+                        record.destinationLocationCode(), record.transportationType(), record.operatingDays(),
+                        record.departureTime(), record.arrivalTime(), null);
+            } catch (JsonProcessingException e) {
+                return TransportationRow.invalid(number[0],
+                        String.format(ExceptionMessages.IMPORT_INVALID_JSON, e.getOriginalMessage()));
+            }
+        };
+    }
+
+    private static TransportationType parseType(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return TransportationType.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format(ExceptionMessages.IMPORT_INVALID_TRANSPORTATION_TYPE, value));
+        }
+    }
+
+    private static List<Integer> parseDays(String value) {
+        List<Integer> days = new ArrayList<>();
+        if (value == null) {
+            return days;
+        }
+        for (String day : value.split("[\\s;|]+")) {
+            if (!day.isEmpty()) {
+                try {
+                    days.add(Integer.parseInt(day));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(String.format(ExceptionMessages.IMPORT_INVALID_OPERATING_DAYS, value));
+                }
+            }
+        }
+        return days;
+    }
+
+    private static LocalTime parseTime(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(String.format(ExceptionMessages.IMPORT_INVALID_TIME, name, value));
+        }
+    }
+
+    private static int indexOf(List<String> header, String name) {
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).trim().toLowerCase(Locale.ROOT).equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index).trim() : null;
+    }
+
+    record JsonRow(String originLocationCode, String destinationLocationCode,
+                  TransportationType transportationType, List<Integer> operatingDays,
+                  LocalTime departureTime, LocalTime arrivalTime) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.ttech.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the {@link SearchTrace} of every route search: one timer per phase and counters for the
+ * work done. Searches answered from the cache only record location resolution. Outside {@code debug=timing},
+ * the filter time is extrapolated from a sample of the routes, see {@link SearchTrace}.
+ */
+@Component
+public class RouteSearchMetrics {
+
+    private final Timer resolveTimer;
+    private final Timer traverseTimer;
+    private final Timer filterTimer;
+    private final Counter nodesExpanded;
+    private final Counter edgesScanned;
+    private final Counter routesFound;
+    private final Counter routesRejected;
+
+    public RouteSearchMetrics(MeterRegistry meterRegistry) {
+        this.resolveTimer = phaseTimer(meterRegistry, "resolve", "Resolving location codes to graph nodes");
+        this.traverseTimer = phaseTimer(meterRegistry, "traverse", "Walking the route graph");
+        this.filterTimer = phaseTimer(meterRegistry, "filter", "Materializing and validating found routes");
+        this.nodesExpanded = counter(meterRegistry, "route.search.nodes.expanded",
+                "Locations whose outgoing legs were scanned");
+        this.edgesScanned = counter(meterRegistry, "route.search.edges.scanned", "Legs examined by the search");
+        this.routesFound = counter(meterRegistry, "route.search.routes.found", "Routes returned by searches");
+        this.routesRejected = counter(meterRegistry, "route.search.routes.rejected",
+                "Routes found by the graph walk but rejected by isValidRoute");
+    }
+
+    public void record(SearchTrace trace) {
+        resolveTimer.record(trace.getResolveNanos(), TimeUnit.NANOSECONDS);
+        if (!trace.isSearched()) {
+            return;
+        }
+        traverseTimer.record(trace.getTraverseNanos(), TimeUnit.NANOSECONDS);
+        filterTimer.record(trace.getFilterNanos(), TimeUnit.NANOSECONDS);
+        nodesExpanded.increment(trace.getStats().getNodesExpanded());
+        edgesScanned.increment(trace.getStats().getEdgesScanned());
+        routesFound.increment(trace.getRoutesFound());
+        routesRejected.increment(trace.getRoutesRejected());
+    }
+
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String phase, String description) {
+        return Timer.builder("route.search.phase")
+                .description(description)
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String description) {
+        return Counter.builder(name).description(description).register(meterRegistry);
+    }
+}
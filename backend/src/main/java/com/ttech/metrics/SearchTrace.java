@@ -0,0 +1,123 @@
+package com.ttech.metrics;
+
+import com.ttech.dto.responses.TimingBreakdown;
+import com.ttech.graph.SearchStats;
+
+/**
+ * Timings and work counters of one route search. Filled in by the thread running the search; read
+ * once it has finished.
+ * <p>
+ * Filtering and emitting are timed per route. A trace asked for with {@code timed} times every route;
+ * otherwise only one route in {@link #SAMPLE_INTERVAL} is timed and the phase times are extrapolated, so
+ * untraced searches do not pay for clock reads on every route.
+ */
+public final class SearchTrace {
+
+    static final int SAMPLE_INTERVAL = 64;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final SearchStats stats = new SearchStats();
+    private final int sampleInterval;
+    private long resolveNanos;
+    private long searchNanos;
+    private long filterNanos;
+    private long filterSamples;
+    private long emitNanos;
+    private long emitSamples;
+    private long totalNanos;
+    private boolean searched;
+    private long routesFound;
+    private long routesRejected;
+
+    public SearchTrace() {
+        this(false);
+    }
+
+    public SearchTrace(boolean timed) {
+        this.sampleInterval = timed ? 1 : SAMPLE_INTERVAL;
+    }
+
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    public void resolved(long nanos) {
+        resolveNanos = nanos;
+    }
+
+    /**
+     * Records a graph search that ran instead of being answered from the cache.
+     */
+    public void searched(long nanos) {
+        searched = true;
+        searchNanos += nanos;
+    }
+
+    /**
+     * Whether the next route should be timed with {@link #filtered(long, boolean)} and {@link #emitted}.
+     */
+    public boolean timesNextRoute() {
+        return (routesFound + routesRejected) % sampleInterval == 0;
+    }
+
+    public void filtered(long nanos, boolean valid) {
+        filterNanos += nanos;
+        filterSamples++;
+        filtered(valid);
+    }
+
+    /**
+     * Counts a route that was not timed.
+     */
+    public void filtered(boolean valid) {
+        if (valid) {
+            routesFound++;
+        } else {
+            routesRejected++;
+        }
+    }
+
+    // Time spent handing routes to the caller, e.g. writing them to a stream, is not search time
+    public void emitted(long nanos) {
+        emitNanos += nanos;
+        emitSamples++;
+    }
+
+    public void finished(long nanos) {
+        totalNanos = nanos;
+    }
+
+    public long getResolveNanos() {
+        return resolveNanos;
+    }
+
+    public long getTraverseNanos() {
+        return Math.max(0, searchNanos - getFilterNanos() - extrapolate(emitNanos, emitSamples, routesFound));
+    }
+
+    public long getFilterNanos() {
+        return extrapolate(filterNanos, filterSamples, routesFound + routesRejected);
+    }
+
+    public boolean isSearched() {
+        return searched;
+    }
+
+    public long getRoutesFound() {
+        return routesFound;
+    }
+
+    public long getRoutesRejected() {
+        return routesRejected;
+    }
+
+    public TimingBreakdown toBreakdown() {
+        return new TimingBreakdown(resolveNanos / NANOS_PER_MILLI, getTraverseNanos() / NANOS_PER_MILLI,
+                getFilterNanos() / NANOS_PER_MILLI, totalNanos / NANOS_PER_MILLI, !searched,
+                stats.getNodesExpanded(), stats.getEdgesScanned(), routesFound, routesRejected);
+    }
+
+    private static long extrapolate(long sampledNanos, long samples, long total) {
+        return samples == 0 || samples == total ? sampledNanos : sampledNanos * total / samples;
+    }
+}
@@ -1,14 +1,23 @@
 package com.ttech.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "locations")
+// Keyset pagination indexes for each sort key, the id breaking ties
+@Table(name = "locations", indexes = {
+        @Index(name = "idx_locations_name_id", columnList = "name, id"),
+        @Index(name = "idx_locations_country_id", columnList = "country, id"),
+        @Index(name = "idx_locations_city_id", columnList = "city, id")
+})
 @Data
 @NoArgsConstructor
+// Transportations reference locations lazily; serialize an initialized proxy like the entity itself
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Location {
 
     @Id
@@ -31,6 +40,11 @@ public class Location {
     @Column(name = "location_code", nullable = false, unique = true)
     private String locationCode;
 
+    // Time needed to change legs here; null uses route.search.schedule.min-connection-minutes
+    @Min(value = 0, message = "Minimum connection time cannot be negative")
+    @Column(name = "min_connection_minutes")
+    private Integer minConnectionMinutes;
+
     public enum SortBy {
         id, name, locationCode, country, city
     }
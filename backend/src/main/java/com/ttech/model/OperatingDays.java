@@ -0,0 +1,52 @@
+package com.ttech.model;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Operating days packed into a 7-bit mask, bit 0 being Monday (ISO day 1).
+ * A missing or empty day list means the transportation runs every day.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class OperatingDays {
+
+    public static final int ALL_DAYS = 0x7F;
+
+    public static int bit(DayOfWeek dayOfWeek) {
+        return 1 << (dayOfWeek.getValue() - 1);
+    }
+
+    public static int toMask(List<Integer> days) {
+        if (days == null || days.isEmpty()) {
+            return ALL_DAYS;
+        }
+        int mask = 0;
+        for (Integer day : days) {
+            if (day != null && day >= 1 && day <= 7) {
+                mask |= 1 << (day - 1);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Spells out "every day" for a missing or empty day list, leaving any other list as it is.
+     */
+    public static List<Integer> normalize(List<Integer> days) {
+        return days == null || days.isEmpty() ? toList(ALL_DAYS) : days;
+    }
+
+    public static List<Integer> toList(int mask) {
+        List<Integer> days = new ArrayList<>(Integer.bitCount(mask & ALL_DAYS));
+        for (int day = 1; day <= 7; day++) {
+            if ((mask & (1 << (day - 1))) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+}
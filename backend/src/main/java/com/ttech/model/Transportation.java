@@ -1,13 +1,19 @@
 package com.ttech.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalTime;
 import java.util.List;
 
 @Entity
-@Table(name = "transportations")
+// Keep filtered keyset pages on an index range as well
+@Table(name = "transportations", indexes = {
+        @Index(name = "idx_transportations_origin_id", columnList = "origin_location_id, id"),
+        @Index(name = "idx_transportations_destination_id", columnList = "destination_location_id, id")
+})
 @Data
 @NoArgsConstructor
 public class Transportation {
@@ -15,11 +21,12 @@ public class Transportation {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    // Lazy so every query states its own fetch plan, see TransportationRepository
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "origin_location_id", nullable = false)
     private Location originLocation;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "destination_location_id", nullable = false)
     private Location destinationLocation;
 
@@ -27,13 +34,38 @@ public class Transportation {
     @Column(name = "transportation_type", nullable = false)
     private TransportationType transportationType;
 
-    @Column(name = "operating_days", columnDefinition = "integer[]")
+    // Never stored empty, so operating_days @> ARRAY[day] also matches transportations running every day
+    @Column(name = "operating_days", columnDefinition = "integer[]", nullable = false)
     private List<Integer> operatingDays;
 
+    // Derived from operatingDays, see OperatingDays
+    @JsonIgnore
+    @Column(name = "operating_days_mask", nullable = false)
+    private Integer operatingDaysMask;
+
+    // Optional schedule, both or neither; an arrival before the departure lands on the next day
+    @Column(name = "departure_time")
+    private LocalTime departureTime;
+
+    @Column(name = "arrival_time")
+    private LocalTime arrivalTime;
+
+    public void setOperatingDays(List<Integer> operatingDays) {
+        this.operatingDays = operatingDays;
+        this.operatingDaysMask = OperatingDays.toMask(operatingDays);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void syncOperatingDaysMask() {
+        operatingDays = OperatingDays.normalize(operatingDays);
+        operatingDaysMask = OperatingDays.toMask(operatingDays);
+    }
+
     public enum TransportationType {
         FLIGHT,
         BUS,
         SUBWAY,
         UBER
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package com.ttech.pagination;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ttech.constant.ExceptionMessages;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Encodes keyset scroll positions as opaque URL-safe cursors. A cursor holds the sort key values of the
+ * last row of a page; the next page starts right after them, so fetching it costs the same at any depth.
+ */
+public final class KeysetCursor {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<LinkedHashMap<String, Object>> KEYS = new TypeReference<>() {
+    };
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("Not a keyset position: " + position);
+        }
+        try {
+            byte[] json = OBJECT_MAPPER.writeValueAsBytes(keyset.getKeys());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the position after the cursor, or the first position when there is none. The cursor must
+     * have been issued for the same sort properties; {@code id} keys are read back as longs.
+     */
+    public static ScrollPosition decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> keys;
+        try {
+            keys = OBJECT_MAPPER.readValue(Base64.getUrlDecoder().decode(cursor.trim()), KEYS);
+        } catch (IllegalArgumentException | IOException e) {
+            throw invalid();
+        }
+
+        Set<String> properties = new HashSet<>();
+        sort.forEach(order -> properties.add(order.getProperty()));
+        if (keys == null || !keys.keySet().equals(properties) || keys.containsValue(null)) {
+            throw invalid();
+        }
+        Object id = keys.get("id");
+        if (id != null) {
+            if (!(id instanceof Number number)) {
+                throw invalid();
+            }
+            keys.put("id", number.longValue());
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    private static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, ExceptionMessages.INVALID_CURSOR);
+    }
+}
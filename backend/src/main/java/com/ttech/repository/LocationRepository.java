@@ -2,13 +2,15 @@ package com.ttech.repository;
 
 import com.ttech.model.Location;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 @Repository
-public interface LocationRepository extends JpaRepository<Location, Long> {
+public interface LocationRepository extends JpaRepository<Location, Long>, JpaSpecificationExecutor<Location> {
     Location findByLocationCode(String locationCode);
     
     List<Location> findByCountryContainingIgnoreCase(String country);
@@ -18,4 +20,9 @@ public interface LocationRepository extends JpaRepository<Location, Long> {
 
     Page<Location> findByNameContainingIgnoreCaseOrLocationCodeContainingIgnoreCase(
             String name, String locationCode, Pageable pageable);
+
+    // Planner statistics, negative until the table has been analyzed
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = to_regclass('locations')",
+            nativeQuery = true)
+    long estimateCount();
 } 
\ No newline at end of file
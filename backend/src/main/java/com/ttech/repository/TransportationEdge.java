@@ -0,0 +1,12 @@
+package com.ttech.repository;
+
+import com.ttech.model.Transportation.TransportationType;
+
+import java.time.LocalTime;
+
+/**
+ * The columns of a transportation the route graph needs, read without loading entities or locations.
+ */
+public record TransportationEdge(Long id, Long originId, Long destinationId, TransportationType type,
+                                 Integer operatingDaysMask, LocalTime departureTime, LocalTime arrivalTime) {
+}
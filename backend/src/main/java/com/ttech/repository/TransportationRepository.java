@@ -2,22 +2,54 @@ package com.ttech.repository;
 
 import com.ttech.model.Location;
 import com.ttech.model.Transportation;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransportationRepository
         extends JpaRepository<Transportation, Long>,JpaSpecificationExecutor<Transportation>
 {
 
+    // Listings and lookups join both locations into the same select instead of loading them one by one
+    @Override
+    @EntityGraph(attributePaths = {"originLocation", "destinationLocation"})
+    Optional<Transportation> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"originLocation", "destinationLocation"})
+    Page<Transportation> findAll(Specification<Transportation> spec, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"originLocation", "destinationLocation"})
     List<Transportation> findByOriginLocation(Location origin);
 
+    @EntityGraph(attributePaths = {"originLocation", "destinationLocation"})
     List<Transportation> findByDestinationLocation(Location destination);
 
+    @EntityGraph(attributePaths = {"originLocation", "destinationLocation"})
     List<Transportation> findByOriginLocationAndDestinationLocation(Location origin, Location destination);
+
+    // Reads the location ids straight from the foreign key columns
+    @Query("SELECT new com.ttech.repository.TransportationEdge(t.id, t.originLocation.id, t.destinationLocation.id,"
+            + " t.transportationType, t.operatingDaysMask, t.departureTime, t.arrivalTime) FROM Transportation t")
+    List<TransportationEdge> findAllEdges();
+
+    // Planner statistics, negative until the table has been analyzed
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = to_regclass('transportations')",
+            nativeQuery = true)
+    long estimateCount();
+
+    // Raised by triggers in every transaction that changes locations or transportations
+    @Query(value = "SELECT revision FROM route_network_revision WHERE id = 1", nativeQuery = true)
+    long findNetworkRevision();
 }
 
 
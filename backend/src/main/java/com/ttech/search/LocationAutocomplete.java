@@ -0,0 +1,72 @@
+package com.ttech.search;
+
+import com.ttech.graph.RouteGraph;
+import com.ttech.graph.RouteGraphChange;
+import com.ttech.graph.RouteGraphProvider;
+import com.ttech.graph.RouteGraphUpdatedEvent;
+import com.ttech.model.Location;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves location autocomplete from a {@link LocationSearchIndex} built over the locations of the current
+ * {@link RouteGraph}. The index is rebuilt whenever a graph update touches locations, so searches never
+ * query the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class LocationAutocomplete {
+
+    private final RouteGraphProvider routeGraphProvider;
+
+    private final AtomicReference<LocationSearchIndex> index = new AtomicReference<>();
+    // The first build may load the graph from the database, so a virtual thread must not hold a monitor
+    private final ReentrantLock buildLock = new ReentrantLock();
+
+    public List<Location> search(String query, int limit) {
+        LocationSearchIndex current = index.get();
+        return (current != null ? current : buildIfAbsent()).search(query, limit);
+    }
+
+    @EventListener
+    public void onGraphUpdated(RouteGraphUpdatedEvent event) {
+        if (event.changes() == null || event.changes().stream().anyMatch(LocationAutocomplete::touchesLocations)) {
+            index.set(build(event.current()));
+        }
+    }
+
+    private LocationSearchIndex buildIfAbsent() {
+        buildLock.lock();
+        try {
+            LocationSearchIndex current = index.get();
+            if (current == null) {
+                current = build(routeGraphProvider.current());
+                // A graph update may have installed a newer index meanwhile
+                if (!index.compareAndSet(null, current)) {
+                    current = index.get();
+                }
+            }
+            return current;
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    private static LocationSearchIndex build(RouteGraph graph) {
+        List<Location> locations = new ArrayList<>(graph.nodeCount());
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            locations.add(graph.location(node));
+        }
+        return LocationSearchIndex.build(locations);
+    }
+
+    private static boolean touchesLocations(RouteGraphChange change) {
+        return change instanceof RouteGraphChange.LocationSaved || change instanceof RouteGraphChange.LocationDeleted;
+    }
+}
@@ -0,0 +1,280 @@
+package com.ttech.search;
+
+import com.ttech.model.Location;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable autocomplete index over location codes, names and cities. Prefix matches come from a
+ * sorted term array, searched like a flattened trie: every term starting with the query sits in one
+ * contiguous range found by binary search. Queries of three or more characters also match anywhere
+ * inside the text through trigram posting lists. Text is lower-cased and stripped of diacritics.
+ */
+public final class LocationSearchIndex {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    // Match ranks, best first
+    private static final int EXACT_CODE = 0;
+    private static final int CODE_PREFIX = 1;
+    private static final int EXACT_WORD = 2;
+    private static final int WORD_PREFIX = 3;
+    private static final int SUBSTRING = 4;
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    private final Location[] locations;
+    private final String[] terms;
+    private final int[] termLocations;
+    private final boolean[] termIsCode;
+    private final String[] texts;
+    private final Map<Long, int[]> trigrams;
+    // Tie-break order between locations of equal rank: shorter names first, then by name
+    private final int[] tieBreaks;
+    private final int[] locationsByTieBreak;
+
+    private LocationSearchIndex(Location[] locations, String[] terms, int[] termLocations, boolean[] termIsCode,
+                                String[] texts, Map<Long, int[]> trigrams, int[] tieBreaks,
+                                int[] locationsByTieBreak) {
+        this.locations = locations;
+        this.terms = terms;
+        this.termLocations = termLocations;
+        this.termIsCode = termIsCode;
+        this.texts = texts;
+        this.trigrams = trigrams;
+        this.tieBreaks = tieBreaks;
+        this.locationsByTieBreak = locationsByTieBreak;
+    }
+
+    public static LocationSearchIndex build(List<Location> locations) {
+        Location[] indexed = locations.toArray(new Location[0]);
+        List<Term> terms = new ArrayList<>();
+        String[] texts = new String[indexed.length];
+        Map<Long, Posting> postings = new HashMap<>();
+
+        for (int location = 0; location < indexed.length; location++) {
+            String code = normalize(indexed[location].getLocationCode());
+            String name = normalize(indexed[location].getName());
+            String city = normalize(indexed[location].getCity());
+
+            terms.add(new Term(code, location, true));
+            Set<String> words = new LinkedHashSet<>();
+            words.add(name);
+            words.add(city);
+            addWords(name, words);
+            addWords(city, words);
+            for (String word : words) {
+                if (!word.isEmpty() && !word.equals(code)) {
+                    terms.add(new Term(word, location, false));
+                }
+            }
+
+            String text = code + ' ' + name + ' ' + city;
+            texts[location] = text;
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                postings.computeIfAbsent(trigram(text, i), k -> new Posting()).add(location);
+            }
+        }
+
+        terms.sort(Comparator.comparing(Term::text));
+        String[] termTexts = new String[terms.size()];
+        int[] termLocations = new int[terms.size()];
+        boolean[] termIsCode = new boolean[terms.size()];
+        for (int i = 0; i < terms.size(); i++) {
+            termTexts[i] = terms.get(i).text();
+            termLocations[i] = terms.get(i).location();
+            termIsCode[i] = terms.get(i).code();
+        }
+
+        Map<Long, int[]> trigrams = new HashMap<>(postings.size() * 2);
+        postings.forEach((trigram, posting) -> trigrams.put(trigram, posting.toArray()));
+
+        Integer[] byName = new Integer[indexed.length];
+        for (int i = 0; i < byName.length; i++) {
+            byName[i] = i;
+        }
+        Arrays.sort(byName, Comparator.<Integer>comparingInt(i -> indexed[i].getName().length())
+                .thenComparing(i -> indexed[i].getName())
+                .thenComparing(i -> indexed[i].getId()));
+        int[] tieBreaks = new int[indexed.length];
+        int[] locationsByTieBreak = new int[indexed.length];
+        for (int rank = 0; rank < byName.length; rank++) {
+            tieBreaks[byName[rank]] = rank;
+            locationsByTieBreak[rank] = byName[rank];
+        }
+
+        return new LocationSearchIndex(indexed, termTexts, termLocations, termIsCode, texts, trigrams, tieBreaks,
+                locationsByTieBreak);
+    }
+
+    public int size() {
+        return locations.length;
+    }
+
+    /**
+     * Returns up to {@code limit} locations matching the query: exact code matches first, then code
+     * prefixes, whole words, word prefixes and finally matches inside a word.
+     */
+    public List<Location> search(String query, int limit) {
+        String normalized = query != null ? normalize(query) : "";
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        int[] ranks = new int[locations.length];
+        Arrays.fill(ranks, NO_MATCH);
+        int matched = 0;
+        for (int i = lowerBound(normalized); i < terms.length && terms[i].startsWith(normalized); i++) {
+            boolean exact = terms[i].length() == normalized.length();
+            int rank = termIsCode[i] ? (exact ? EXACT_CODE : CODE_PREFIX) : (exact ? EXACT_WORD : WORD_PREFIX);
+            int location = termLocations[i];
+            if (ranks[location] == NO_MATCH) {
+                matched++;
+            }
+            ranks[location] = Math.min(ranks[location], rank);
+        }
+
+        if (normalized.length() >= 3) {
+            for (int location : substringCandidates(normalized)) {
+                if (ranks[location] == NO_MATCH && texts[location].contains(normalized)) {
+                    ranks[location] = SUBSTRING;
+                    matched++;
+                }
+            }
+        }
+
+        // Rank in the high half, tie-break in the low half, so one primitive sort orders the matches
+        long[] order = new long[matched];
+        int next = 0;
+        for (int location = 0; location < ranks.length; location++) {
+            if (ranks[location] != NO_MATCH) {
+                order[next++] = (long) ranks[location] << 32 | tieBreaks[location];
+            }
+        }
+        Arrays.sort(order);
+
+        List<Location> results = new ArrayList<>(Math.min(limit, order.length));
+        for (int i = 0; i < order.length && results.size() < limit; i++) {
+            results.add(locations[locationsByTieBreak[(int) order[i]]]);
+        }
+        return results;
+    }
+
+    // Locations containing every trigram of the query, found by intersecting the posting lists
+    private int[] substringCandidates(String query) {
+        int[] candidates = null;
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            int[] posting = trigrams.get(trigram(query, i));
+            if (posting == null) {
+                return new int[0];
+            }
+            candidates = candidates == null ? posting : intersect(candidates, posting);
+            if (candidates.length == 0) {
+                break;
+            }
+        }
+        return candidates;
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (terms[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int[] intersect(int[] left, int[] right) {
+        int[] result = new int[Math.min(left.length, right.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < left.length && j < right.length; ) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static long trigram(String text, int start) {
+        return (long) text.charAt(start) << 32 | (long) text.charAt(start + 1) << 16 | text.charAt(start + 2);
+    }
+
+    // Splits on anything that is not a letter or digit
+    private static void addWords(String text, Set<String> words) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('\u0131', 'i');
+        if (isAscii(lower)) {
+            return lower.trim();
+        }
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("").trim();
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Growable list of location positions; locations are added in order, so repeats are always at the end
+    private static final class Posting {
+
+        private int[] locations = new int[4];
+        private int size;
+
+        void add(int location) {
+            if (size > 0 && locations[size - 1] == location) {
+                return;
+            }
+            if (size == locations.length) {
+                locations = Arrays.copyOf(locations, size * 2);
+            }
+            locations[size++] = location;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(locations, size);
+        }
+    }
+
+    private record Term(String text, int location, boolean code) {
+    }
+}
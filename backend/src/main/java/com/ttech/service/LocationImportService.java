@@ -0,0 +1,215 @@
+package com.ttech.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ttech.constant.ExceptionMessages;
+import com.ttech.dto.responses.LocationImportReport;
+import com.ttech.graph.RouteGraphChange;
+import com.ttech.imports.LocationRow;
+import com.ttech.imports.LocationRowReader;
+import com.ttech.model.Location;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk location import. Rows are read in chunks; each chunk costs one query for the codes that
+ * already exist and one multi-row insert, instead of a lookup and an insert per row.
+ */
+@Service
+@RequiredArgsConstructor
+public class LocationImportService {
+
+    private static final int CHUNK_SIZE = 1_000;
+    private static final int MAX_REPORTED_ISSUES = 100;
+    // Length of the varchar columns Hibernate generates for Location; longer values would fail the chunk
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    private static final String FIND_EXISTING_SQL =
+            "SELECT id, name, country, city, location_code FROM locations WHERE location_code = ANY(?)";
+    private static final String INSERT_SQL = """
+            INSERT INTO locations (name, country, city, location_code)
+            SELECT * FROM unnest(?, ?, ?, ?)
+            ON CONFLICT (location_code) DO NOTHING
+            RETURNING id, location_code""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LocationImportReport importLocations(InputStream body, MediaType contentType) throws IOException {
+        long start = System.nanoTime();
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, charset));
+        LocationRowReader rows = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? LocationRowReader.ndjson(reader, objectMapper)
+                : LocationRowReader.csv(reader);
+
+        LocationImportReport report = new LocationImportReport();
+        List<LocationRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (LocationRow row = rows.next(); row != null; row = rows.next()) {
+            String error = row.error() != null ? row.error() : validate(row.location());
+            if (error != null) {
+                report.setInvalid(report.getInvalid() + 1);
+                addIssue(report, row, error);
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+
+        report.setDurationMillis((System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    private void importChunk(List<LocationRow> chunk, LocationImportReport report) {
+        // The first row of a code wins; later rows of the same code are compared against it
+        Map<String, LocationRow> candidates = new LinkedHashMap<>();
+        for (LocationRow row : chunk) {
+            LocationRow first = candidates.putIfAbsent(row.location().getLocationCode(), row);
+            if (first != null) {
+                classifyExisting(row, first.location(),
+                        String.format(ExceptionMessages.IMPORT_DUPLICATE_ROW, first.number()), report);
+            }
+        }
+
+        Map<String, Location> existing = findExisting(candidates.keySet());
+        List<LocationRow> inserts = new ArrayList<>(candidates.size());
+        for (LocationRow row : candidates.values()) {
+            Location current = existing.get(row.location().getLocationCode());
+            if (current != null) {
+                classifyExisting(row, current,
+                        String.format(ExceptionMessages.IMPORT_CODE_EXISTS, row.location().getLocationCode()), report);
+            } else {
+                inserts.add(row);
+            }
+        }
+        if (inserts.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> insertedIds = insert(inserts);
+        for (LocationRow row : inserts) {
+            Location location = row.location();
+            Long id = insertedIds.get(location.getLocationCode());
+            if (id == null) {
+                report.setConflicting(report.getConflicting() + 1);
+                addIssue(report, row,
+                        String.format(ExceptionMessages.IMPORT_CODE_TAKEN_CONCURRENTLY, location.getLocationCode()));
+                continue;
+            }
+            location.setId(id);
+            report.setInserted(report.getInserted() + 1);
+            eventPublisher.publishEvent(RouteGraphChange.locationSaved(location));
+        }
+    }
+
+    private Map<String, Location> findExisting(Collection<String> codes) {
+        Map<String, Location> existing = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_EXISTING_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", codes.toArray()));
+            return statement;
+        }, resultSet -> {
+            Location location = new Location();
+            location.setId(resultSet.getLong("id"));
+            location.setName(resultSet.getString("name"));
+            location.setCountry(resultSet.getString("country"));
+            location.setCity(resultSet.getString("city"));
+            location.setLocationCode(resultSet.getString("location_code"));
+            existing.put(location.getLocationCode(), location);
+        });
+        return existing;
+    }
+
+    private Map<String, Long> insert(List<LocationRow> rows) {
+        Map<String, Long> ids = new HashMap<>(rows.size() * 2);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+            String[][] columns = new String[4][rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                Location location = rows.get(i).location();
+                columns[0][i] = location.getName();
+                columns[1][i] = location.getCountry();
+                columns[2][i] = location.getCity();
+                columns[3][i] = location.getLocationCode();
+            }
+            for (int column = 0; column < columns.length; column++) {
+                statement.setArray(column + 1, connection.createArrayOf("varchar", columns[column]));
+            }
+            return statement;
+        }, resultSet -> {
+            ids.put(resultSet.getString("location_code"), resultSet.getLong("id"));
+        });
+        return ids;
+    }
+
+    private void classifyExisting(LocationRow row, Location existing, String conflictReason,
+                                  LocationImportReport report) {
+        Location location = row.location();
+        if (Objects.equals(location.getName(), existing.getName())
+                && Objects.equals(location.getCountry(), existing.getCountry())
+                && Objects.equals(location.getCity(), existing.getCity())) {
+            report.setSkipped(report.getSkipped() + 1);
+        } else {
+            report.setConflicting(report.getConflicting() + 1);
+            addIssue(report, row, conflictReason);
+        }
+    }
+
+    private String validate(Location location) {
+        Set<ConstraintViolation<Location>> violations = validator.validate(location);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        String[][] fields = {
+                {"name", location.getName()},
+                {"country", location.getCountry()},
+                {"city", location.getCity()},
+                {"locationCode", location.getLocationCode()}
+        };
+        for (String[] field : fields) {
+            if (field[1].length() > MAX_FIELD_LENGTH) {
+                return String.format(ExceptionMessages.IMPORT_FIELD_TOO_LONG, field[0], MAX_FIELD_LENGTH);
+            }
+        }
+        return null;
+    }
+
+    private void addIssue(LocationImportReport report, LocationRow row, String reason) {
+        if (report.getIssues().size() < MAX_REPORTED_ISSUES) {
+            String code = row.location() != null ? row.location().getLocationCode() : null;
+            report.getIssues().add(new LocationImportReport.Issue(row.number(), code, reason));
+        }
+    }
+}
@@ -1,44 +1,100 @@
 package com.ttech.service;
 
+import com.ttech.cache.LocationCache;
 import com.ttech.constant.ExceptionMessages;
+import com.ttech.dto.requests.TotalCount;
+import com.ttech.dto.responses.CursorPage;
+import com.ttech.graph.RouteGraphChange;
 import com.ttech.model.Location;
+import com.ttech.model.Location.SortBy;
+import com.ttech.pagination.KeysetCursor;
 import com.ttech.repository.LocationRepository;
+import com.ttech.search.LocationAutocomplete;
+import com.ttech.specifications.LocationSpecifications;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class LocationService {
 
+    private static final int MAX_AUTOCOMPLETE_RESULTS = 50;
+    private static final int MAX_SCROLL_SIZE = 100;
+
     private final LocationRepository locationRepository;
+    private final LocationCache locationCache;
+    private final LocationAutocomplete locationAutocomplete;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
 
     public Page<Location> getAllLocations(String search, Pageable pageable) {
-        if (search != null && !search.trim().isEmpty()) {
-            return locationRepository.findByNameContainingIgnoreCaseOrLocationCodeContainingIgnoreCase(search, search,
-                    pageable);
-        } else {
-            return locationRepository.findAll(pageable);
+        // lower(column) LIKE matches the trigram indexes; the derived ContainingIgnoreCase query uses upper()
+        return meterRegistry.timer("location.query", "operation", "list").record(() -> locationRepository.findAll(
+                Specification.where(LocationSpecifications.nameOrCodeContains(search)), pageable));
+    }
+
+    /**
+     * Returns the page after the cursor, ordered by the sort key with the id as tie-break.
+     */
+    public CursorPage<Location> scrollLocations(String search, SortBy sortBy, Sort.Direction sortOrder, int size,
+                                                String cursor, TotalCount totalCount) {
+        Sort sort = sortBy == SortBy.id
+                ? Sort.by(sortOrder, "id")
+                : Sort.by(sortOrder, sortBy.toString()).and(Sort.by(sortOrder, "id"));
+        ScrollPosition position = KeysetCursor.decode(cursor, sort);
+        int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+
+        Specification<Location> spec = Specification.where(LocationSpecifications.nameOrCodeContains(search));
+        return meterRegistry.timer("location.query", "operation", "scroll").record(() -> {
+            Window<Location> window = locationRepository.findBy(spec,
+                    query -> query.sortBy(sort).limit(limit).scroll(position));
+            return CursorPage.of(window, total(spec, search != null && !search.trim().isEmpty(), totalCount));
+        });
+    }
+
+    private Long total(Specification<Location> spec, boolean filtered, TotalCount totalCount) {
+        if (totalCount == TotalCount.estimated && !filtered) {
+            long estimate = locationRepository.estimateCount();
+            if (estimate >= 0) {
+                return estimate;
+            }
         }
+        return totalCount == TotalCount.none ? null : locationRepository.count(spec);
+    }
+
+    public List<Location> autocomplete(String query, int limit) {
+        return meterRegistry.timer("location.query", "operation", "autocomplete").record(
+                () -> locationAutocomplete.search(query, Math.max(1, Math.min(limit, MAX_AUTOCOMPLETE_RESULTS))));
     }
 
     public Location getLocationById(Long id) {
-        return locationRepository.findById(id)
+        return locationCache.findById(id)
                 .orElseThrow(
                         () -> new ResponseStatusException(HttpStatus.NOT_FOUND, 
                             String.format(ExceptionMessages.LOCATION_NOT_FOUND, id)));
     }
 
     public Location createLocation(Location location) {
-        if (locationRepository.findByLocationCode(location.getLocationCode()) != null) {
+        if (locationCache.findByCode(location.getLocationCode()) != null) {
             throw new ResponseStatusException(HttpStatus.CONFLICT,
                     String.format(ExceptionMessages.LOCATION_CODE_EXISTS, location.getLocationCode()));
         }
-        return locationRepository.save(location);
+        Location created = locationRepository.save(location);
+        eventPublisher.publishEvent(RouteGraphChange.locationSaved(created));
+        return created;
     }
 
     public Location updateLocation(Long id, Location locationDetails) {
@@ -47,7 +103,7 @@ public class LocationService {
                         () -> new ResponseStatusException(HttpStatus.NOT_FOUND, 
                             String.format(ExceptionMessages.LOCATION_NOT_FOUND, id)));
 
-        Location existingWithCode = locationRepository.findByLocationCode(locationDetails.getLocationCode());
+        Location existingWithCode = locationCache.findByCode(locationDetails.getLocationCode());
         if (existingWithCode != null && !existingWithCode.getId().equals(id)) {
             throw new ResponseStatusException(HttpStatus.CONFLICT,
                     String.format(ExceptionMessages.LOCATION_CODE_EXISTS, locationDetails.getLocationCode()));
@@ -57,8 +113,11 @@ public class LocationService {
         existingLocation.setCountry(locationDetails.getCountry());
         existingLocation.setCity(locationDetails.getCity());
         existingLocation.setLocationCode(locationDetails.getLocationCode());
+        existingLocation.setMinConnectionMinutes(locationDetails.getMinConnectionMinutes());
 
-        return locationRepository.save(existingLocation);
+        Location updated = locationRepository.save(existingLocation);
+        eventPublisher.publishEvent(RouteGraphChange.locationSaved(updated));
+        return updated;
     }
 
     public void deleteLocation(Long id) {
@@ -72,5 +131,6 @@ public class LocationService {
             throw new ResponseStatusException(HttpStatus.CONFLICT,
                     ExceptionMessages.LOCATION_DELETE_CONFLICT);
         }
+        eventPublisher.publishEvent(RouteGraphChange.locationDeleted(id));
     }
 }
@@ -1,110 +1,393 @@
 package com.ttech.service;
 
+import com.ttech.cache.RouteSearchCache;
+import com.ttech.config.RouteSearchProperties;
 import com.ttech.constant.ExceptionMessages;
+import com.ttech.dto.requests.ReachabilityRequest;
 import com.ttech.dto.requests.RouteSearchRequest;
-import com.ttech.model.Location;
+import com.ttech.dto.requests.RouteSort;
+import com.ttech.dto.responses.Itinerary;
+import com.ttech.dto.responses.ReachableDestination;
+import com.ttech.graph.ConnectionScan;
+import com.ttech.graph.ParallelRouteFinder;
+import com.ttech.graph.Reachability;
+import com.ttech.graph.RouteFinder;
+import com.ttech.graph.RouteGraph;
+import com.ttech.graph.RouteGraphProvider;
+import com.ttech.graph.RouteIndex;
+import com.ttech.graph.RouteIndexProvider;
+import com.ttech.graph.SearchStats;
+import com.ttech.metrics.RouteSearchMetrics;
+import com.ttech.metrics.SearchTrace;
 import com.ttech.model.Transportation;
-import com.ttech.repository.LocationRepository;
-import com.ttech.repository.TransportationRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.ttech.model.Transportation.TransportationType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
 
 @Service
+@RequiredArgsConstructor
 public class RouteService {
 
-    @Autowired
-    private LocationRepository locationRepository;
-
-    @Autowired
-    private TransportationRepository transportationRepository;
+    private final RouteGraphProvider routeGraphProvider;
+    private final RouteSearchCache routeSearchCache;
+    private final RouteIndexProvider routeIndexProvider;
+    private final AsyncTaskExecutor routeSearchExecutor;
+    private final ForkJoinPool routeSearchForkJoinPool;
+    private final RouteSearchProperties properties;
+    private final RouteSearchMetrics routeSearchMetrics;
 
     public List<List<Transportation>> findValidRoutes(RouteSearchRequest request) {
-        Location origin = locationRepository.findByLocationCode(request.getOriginLocationCode());
-        Location destination = locationRepository.findByLocationCode(request.getDestinationLocationCode());
+        return findValidRoutes(request, new SearchTrace());
+    }
 
-        if (origin == null ) {
+    /**
+     * Runs the search and fills in {@code trace} with where its time went.
+     */
+    public List<List<Transportation>> findValidRoutes(RouteSearchRequest request, SearchTrace trace) {
+        return findValidRoutes(routeGraphProvider.current(), request, trace);
+    }
+
+    /**
+     * Runs several searches in parallel against one graph snapshot. The futures are returned in request
+     * order and each one fails on its own, so a bad item never fails the batch.
+     */
+    public List<CompletableFuture<List<List<Transportation>>>> findValidRoutes(List<RouteSearchRequest> requests) {
+        if (requests.size() > properties.getBatch().getMaxSize()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    String.format(ExceptionMessages.INVALID_ORIGIN_LOCATION,
-                        request.getOriginLocationCode()));
+                    String.format(ExceptionMessages.ROUTE_BATCH_TOO_LARGE, properties.getBatch().getMaxSize()));
         }
-        if (destination == null ) {
+        RouteGraph graph = routeGraphProvider.current();
+        return requests.stream()
+                .map(request -> CompletableFuture.supplyAsync(
+                        () -> findValidRoutes(graph, request, new SearchTrace()), routeSearchExecutor))
+                .toList();
+    }
+
+    /**
+     * Searches every date from {@code dateFrom} to {@code dateTo}, in date order. Routes depend only on
+     * the weekday, so each weekday in the range is searched once, in parallel against one graph snapshot,
+     * and all its dates share the result.
+     */
+    public Map<LocalDate, List<List<Transportation>>> findValidRoutesByDate(RouteSearchRequest request) {
+        LocalDate from = request.getDateFrom();
+        LocalDate to = request.getDateTo();
+        if (from == null || to == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ExceptionMessages.DATE_RANGE_REQUIRED);
+        }
+        if (from.isAfter(to)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    String.format(ExceptionMessages.INVALID_DESTINATION_LOCATION,
-                        request.getDestinationLocationCode()));
+                    String.format(ExceptionMessages.INVALID_DATE_RANGE, from, to));
+        }
+        int maxDays = properties.getDateRange().getMaxDays();
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format(ExceptionMessages.DATE_RANGE_TOO_LONG, maxDays));
         }
 
-        // Use current date if date is not provided
-        LocalDate searchDate = request.getDate() != null ? request.getDate() : LocalDate.now();
-
-        List<List<Transportation>> allRoutes = new ArrayList<>();
-        findRoutes(origin, destination, new ArrayList<>(), allRoutes, searchDate, new HashSet<>(),false);
+        RouteGraph graph = routeGraphProvider.current();
+        // Rejects unknown locations before any search starts
+        resolve(graph, request);
+        Map<DayOfWeek, CompletableFuture<List<List<Transportation>>>> byWeekday = new EnumMap<>(DayOfWeek.class);
+        for (LocalDate date = from; !date.isAfter(to) && byWeekday.size() < DayOfWeek.values().length;
+             date = date.plusDays(1)) {
+            RouteSearchRequest onDate = onDate(request, date);
+            byWeekday.put(date.getDayOfWeek(), CompletableFuture.supplyAsync(
+                    () -> findValidRoutes(graph, onDate, new SearchTrace()), routeSearchExecutor));
+        }
 
-        return allRoutes.stream()
-                .filter(this::isValidRoute)
-                .collect(Collectors.toList());
+        Map<LocalDate, List<List<Transportation>>> routes = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            routes.put(date, join(byWeekday.get(date.getDayOfWeek())));
+        }
+        return routes;
     }
 
-    private void findRoutes(Location current, Location destination, List<Transportation> currentRoute,
-                            List<List<Transportation>> allRoutes, LocalDate date,
-                            Set<Location> visited, boolean hasFlight) {
+    /**
+     * Returns every location with at least one valid route from the origin on the request's date, fewest
+     * legs first, then by location code. Counts routes in one sweep from the origin instead of searching
+     * each destination.
+     */
+    public List<ReachableDestination> findReachableDestinations(ReachabilityRequest request) {
+        RouteGraph graph = routeGraphProvider.current();
+        int origin = graph.nodeOf(request.getOriginLocationCode());
+        if (origin < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format(ExceptionMessages.INVALID_ORIGIN_LOCATION, request.getOriginLocationCode()));
+        }
+        LocalDate searchDate = request.getDate() != null ? request.getDate() : LocalDate.now();
 
-        if (current.equals(destination)) {
-            allRoutes.add(new ArrayList<>(currentRoute));
-            return;
+        Reachability reachability = Reachability.from(graph, graph.onDay(searchDate.getDayOfWeek()), origin,
+                new SearchStats());
+        List<ReachableDestination> destinations = new ArrayList<>();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (reachability.isReachable(node)) {
+                destinations.add(new ReachableDestination(graph.location(node), reachability.routeCount(node),
+                        reachability.minLegs(node)));
+            }
         }
+        destinations.sort(Comparator.comparingInt(ReachableDestination::getMinLegs)
+                .thenComparing(destination -> destination.getLocation().getLocationCode()));
+        return destinations;
+    }
 
-        if (currentRoute.size() > 3 || visited.contains(current)) {
-            return;
+    /**
+     * Validates the search and returns it without running it. The returned stream passes each route to
+     * its action as soon as the search produces it and collects nothing, so at most one route (or, for
+     * ranked searches, {@code limit} candidates) is held at a time. Cached results are replayed instead.
+     * A ranked search cannot emit anything before it has seen every route, so it must have a limit.
+     */
+    public RouteStream streamValidRoutes(RouteSearchRequest request) {
+        if (request.getSort() != null && request.getLimit() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format(ExceptionMessages.SORTED_STREAM_WITHOUT_LIMIT, request.getSort()));
         }
+        long start = System.nanoTime();
+        Search search = resolve(routeGraphProvider.current(), request);
+        long resolveNanos = System.nanoTime() - start;
+        return action -> {
+            SearchTrace trace = new SearchTrace();
+            trace.resolved(resolveNanos);
+            long streamStart = System.nanoTime();
+            List<List<Transportation>> cached = routeSearchCache.getIfPresent(search.graph(), search.originCode(),
+                    search.destinationCode(), search.dayOfWeek(), search.sort(), search.limit());
+            if (cached != null) {
+                cached.forEach(action);
+            } else {
+                searchRoutes(search, action, trace, true);
+            }
+            trace.finished(resolveNanos + System.nanoTime() - streamStart);
+            routeSearchMetrics.record(trace);
+        };
+    }
 
-        visited.add(current);
+    private List<List<Transportation>> findValidRoutes(RouteGraph graph, RouteSearchRequest request,
+                                                       SearchTrace trace) {
+        long start = System.nanoTime();
+        Search search = resolve(graph, request);
+        trace.resolved(System.nanoTime() - start);
+        List<List<Transportation>> routes = routeSearchCache.get(graph, search.originCode(),
+                search.destinationCode(), search.dayOfWeek(), search.sort(), search.limit(), () -> {
+                    List<List<Transportation>> found = new ArrayList<>();
+                    searchRoutes(search, found::add, trace, false);
+                    return found;
+                });
+        trace.finished(System.nanoTime() - start);
+        routeSearchMetrics.record(trace);
+        return routes;
+    }
 
-        List<Transportation> possibleTransports = transportationRepository.findByOriginLocation(current);
+    /**
+     * Finds the scheduled routes leaving on the request's date, no earlier than its departure time: the
+     * earliest arrival first, then each route with fewer legs that arrives later. Only scheduled
+     * transportations take part, and every change of legs respects the location's minimum connection time.
+     */
+    public List<Itinerary> findScheduledRoutes(RouteSearchRequest request) {
+        return findScheduledRoutes(request, new SearchTrace());
+    }
 
-        for (Transportation transport : possibleTransports) {
-            if (!isTransportAvailable(transport, date)) {
-                continue;
-            }
+    /**
+     * Runs the scheduled search and fills in {@code trace} with where its time went.
+     */
+    public List<Itinerary> findScheduledRoutes(RouteSearchRequest request, SearchTrace trace) {
+        long start = System.nanoTime();
+        RouteGraph graph = routeGraphProvider.current();
+        Search search = resolve(graph, request);
+        LocalDate date = request.getDate() != null ? request.getDate() : LocalDate.now();
+        int departAfter = request.getDepartureTime() != null ? RouteGraph.minuteOfDay(request.getDepartureTime()) : 0;
+        IntUnaryOperator minConnection = minConnection(graph, request.getMinConnectionMinutes());
+        trace.resolved(System.nanoTime() - start);
 
-            if (hasFlight && transport.getTransportationType() == Transportation.TransportationType.FLIGHT) {
-                continue;
+        long searchStart = System.nanoTime();
+        List<ConnectionScan.Journey> journeys = ConnectionScan.search(graph, graph.timetable(search.dayOfWeek()),
+                search.origin(), search.destination(), departAfter, minConnection, trace.getStats());
+        trace.searched(System.nanoTime() - searchStart);
+
+        int limit = search.limit() != null ? Math.min(search.limit(), journeys.size()) : journeys.size();
+        List<Itinerary> itineraries = new ArrayList<>(limit);
+        for (ConnectionScan.Journey journey : journeys.subList(0, limit)) {
+            boolean timed = trace.timesNextRoute();
+            long filterStart = timed ? System.nanoTime() : 0;
+            itineraries.add(new Itinerary(
+                    toRoute(graph, journey.groundBefore(), journey.flight(), journey.groundAfter()),
+                    date.atStartOfDay().plusMinutes(journey.departure()),
+                    date.atStartOfDay().plusMinutes(journey.arrival()),
+                    journey.arrival() - journey.departure()));
+            if (timed) {
+                trace.filtered(System.nanoTime() - filterStart, true);
+            } else {
+                trace.filtered(true);
             }
+        }
+        trace.finished(System.nanoTime() - start);
+        routeSearchMetrics.record(trace);
+        return itineraries;
+    }
+
+    // A location's own minimum connection time, or the configured default; the request can only raise it
+    private IntUnaryOperator minConnection(RouteGraph graph, Integer requested) {
+        int defaultMinutes = properties.getSchedule().getMinConnectionMinutes();
+        int floor = requested != null ? requested : 0;
+        return node -> {
+            Integer own = graph.location(node).getMinConnectionMinutes();
+            return Math.max(floor, own != null ? own : defaultMinutes);
+        };
+    }
 
-            currentRoute.add(transport);
+    private static RouteSearchRequest onDate(RouteSearchRequest request, LocalDate date) {
+        RouteSearchRequest onDate = new RouteSearchRequest(request.getOriginLocationCode(),
+                request.getDestinationLocationCode(), date);
+        onDate.setLimit(request.getLimit());
+        onDate.setSort(request.getSort());
+        return onDate;
+    }
 
-            boolean nextHasFlight = hasFlight || transport.getTransportationType() == Transportation.TransportationType.FLIGHT;
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 
-            findRoutes(transport.getDestinationLocation(), destination, currentRoute, allRoutes, date, visited, nextHasFlight);
+    private Search resolve(RouteGraph graph, RouteSearchRequest request) {
+        int origin = graph.nodeOf(request.getOriginLocationCode());
+        int destination = graph.nodeOf(request.getDestinationLocationCode());
 
-            currentRoute.remove(currentRoute.size() - 1);
+        if (origin < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format(ExceptionMessages.INVALID_ORIGIN_LOCATION,
+                        request.getOriginLocationCode()));
         }
+        if (destination < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format(ExceptionMessages.INVALID_DESTINATION_LOCATION,
+                        request.getDestinationLocationCode()));
+        }
+
+        // Batch items are not bean-validated, so the limit is checked here as well
+        if (request.getLimit() != null && request.getLimit() < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format(ExceptionMessages.INVALID_ROUTE_LIMIT, request.getLimit()));
+        }
+
+        // Use current date if date is not provided
+        LocalDate searchDate = request.getDate() != null ? request.getDate() : LocalDate.now();
+
+        return new Search(graph, request.getOriginLocationCode(), request.getDestinationLocationCode(),
+                origin, destination, searchDate.getDayOfWeek(), request.getSort(), request.getLimit());
+    }
 
-        visited.remove(current);
+    private void searchRoutes(Search search, Consumer<List<Transportation>> action, SearchTrace trace,
+                              boolean streamed) {
+        RouteGraph graph = search.graph();
+        RouteFinder.RouteConsumer consumer = (groundBefore, flight, groundAfter) -> {
+            if (!trace.timesNextRoute()) {
+                List<Transportation> route = toRoute(graph, groundBefore, flight, groundAfter);
+                boolean valid = isValidRoute(route);
+                trace.filtered(valid);
+                if (valid) {
+                    action.accept(route);
+                }
+                return;
+            }
+            long filterStart = System.nanoTime();
+            List<Transportation> route = toRoute(graph, groundBefore, flight, groundAfter);
+            boolean valid = isValidRoute(route);
+            long emitStart = System.nanoTime();
+            trace.filtered(emitStart - filterStart, valid);
+            if (valid) {
+                action.accept(route);
+                trace.emitted(System.nanoTime() - emitStart);
+            }
+        };
+        long start = System.nanoTime();
+        // Without a sort the index holds the routes in search order, so a limit just cuts them short
+        RouteIndex index = search.sort() == null ? routeIndexProvider.current(graph) : null;
+        if (index != null) {
+            index.forEachRoute(graph, search.dayOfWeek(), search.origin(), search.destination(),
+                    search.limit() != null ? search.limit() : Integer.MAX_VALUE, consumer, trace.getStats());
+            trace.searched(System.nanoTime() - start);
+            return;
+        }
+        RouteGraph.DayView day = graph.onDay(search.dayOfWeek());
+        boolean parallel = isParallel(graph, day, search.origin());
+        if (search.sort() == null && search.limit() == null) {
+            // The parallel search holds every route until all its tasks finish, which a stream must not do
+            if (parallel && !streamed) {
+                ParallelRouteFinder.findRoutes(graph, day, search.origin(), search.destination(), consumer,
+                        trace.getStats(), routeSearchForkJoinPool);
+            } else {
+                RouteFinder.findRoutes(graph, day, search.origin(), search.destination(), consumer, trace.getStats());
+            }
+        } else {
+            int[] legCosts = legCosts(search.sort());
+            int limit = search.limit() != null ? search.limit() : Integer.MAX_VALUE;
+            if (parallel) {
+                ParallelRouteFinder.findBestRoutes(graph, day, search.origin(), search.destination(), legCosts,
+                        limit, consumer, trace.getStats(), routeSearchForkJoinPool);
+            } else {
+                RouteFinder.findBestRoutes(graph, day, search.origin(), search.destination(), legCosts, limit,
+                        consumer, trace.getStats());
+            }
+        }
+        trace.searched(System.nanoTime() - start);
     }
 
+    // Splitting costs more than it saves on small searches, so only hubs with a large fan-out go parallel
+    private boolean isParallel(RouteGraph graph, RouteGraph.DayView day, int origin) {
+        long threshold = properties.getParallel().getFanOutThreshold();
+        return threshold > 0 && ParallelRouteFinder.estimateFanOut(graph, day, origin) >= threshold
+                && routeSearchForkJoinPool.getParallelism() > 1;
+    }
 
-    private boolean isTransportAvailable(Transportation transport, LocalDate date) {
-        System.out.print(transport.getId());
-        System.out.print(transport.getOperatingDays() );
+    // Without a sort every route costs the same, so a limit keeps the first routes in search order
+    private int[] legCosts(RouteSort sort) {
+        int[] costs = new int[TransportationType.values().length];
+        if (sort == RouteSort.legs) {
+            Arrays.fill(costs, 1);
+        } else if (sort == RouteSort.cost) {
+            for (TransportationType type : TransportationType.values()) {
+                costs[type.ordinal()] = Math.max(0, properties.getRanking().getLegCost().getOrDefault(type, 1));
+            }
+        }
+        return costs;
+    }
 
-        if (transport.getOperatingDays() == null || transport.getOperatingDays().isEmpty()) {
-            return true;
+    private List<Transportation> toRoute(RouteGraph graph, int groundBefore, int flight, int groundAfter) {
+        List<Transportation> route = new ArrayList<>(3);
+        if (groundBefore != RouteFinder.NO_LEG) {
+            route.add(graph.toTransportation(groundBefore));
+        }
+        route.add(graph.toTransportation(flight));
+        if (groundAfter != RouteFinder.NO_LEG) {
+            route.add(graph.toTransportation(groundAfter));
         }
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        return transport.getOperatingDays().contains(dayOfWeek.getValue());
+        return route;
     }
 
-    private boolean isValidRoute(List<Transportation> route) {
+    public boolean isValidRoute(List<Transportation> route) {
         boolean hasFlight = false;
         int beforeFlightCount = 0;
         int afterFlightCount = 0;
@@ -126,4 +409,16 @@ public class RouteService {
 
         return hasFlight && beforeFlightCount <= 1 && afterFlightCount <= 1;
     }
-} 
\ No newline at end of file
+
+    /**
+     * A validated route search that runs each time {@link #forEach} is called.
+     */
+    @FunctionalInterface
+    public interface RouteStream {
+        void forEach(Consumer<List<Transportation>> action);
+    }
+
+    private record Search(RouteGraph graph, String originCode, String destinationCode, int origin,
+                          int destination, DayOfWeek dayOfWeek, RouteSort sort, Integer limit) {
+    }
+}
@@ -0,0 +1,493 @@
+package com.ttech.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ttech.config.TransportationImportProperties;
+import com.ttech.constant.ExceptionMessages;
+import com.ttech.dto.responses.TransportationImportJob;
+import com.ttech.dto.responses.TransportationImportJob.Issue;
+import com.ttech.dto.responses.TransportationImportJob.Status;
+import com.ttech.graph.RouteGraphProvider;
+import com.ttech.imports.TransportationRow;
+import com.ttech.imports.TransportationRowReader;
+import com.ttech.model.OperatingDays;
+import com.ttech.model.Transportation.TransportationType;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Background bulk upsert of transportations keyed by (origin code, destination code, type, departure time),
+ * so each scheduled departure between two locations is its own row and unscheduled legs have no departure.
+ * The row each key was imported into is recorded in transportation_import_keys, so a key keeps updating
+ * one row even where transportations created through the API repeat it. The upload is spooled to disk
+ * and processed by a single worker in chunked transactions; location codes resolve through a code-to-id
+ * map loaded once per run and each chunk costs one lookup of the existing rows plus JDBC batches of
+ * updates, inserts and newly recorded keys. Job state is written next to the upload after every commit,
+ * so a failed or interrupted job resumes at its first uncommitted chunk.
+ * The route graph is reloaded once the job completes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransportationImportService {
+
+    private static final int MAX_REPORTED_ISSUES = 100;
+    private static final String STATE_SUFFIX = ".json";
+    private static final String UPLOAD_SUFFIX = ".upload";
+
+    private static final String LOCATION_IDS_SQL = "SELECT id, location_code FROM locations";
+    // Per key, the row it was imported into while that row still has the key, else the first row with the key
+    // that no other key was imported into; transportations may repeat a key, see transportation_import_keys
+    private static final String FIND_EXISTING_SQL = """
+            SELECT k.origin_id, k.destination_id, k.transportation_type, k.departure_time,
+                   COALESCE(m.id, f.id) AS id, m.id IS NOT NULL AS mapped
+            FROM unnest(?, ?, ?, ?) AS k(origin_id, destination_id, transportation_type, departure_time)
+            LEFT JOIN LATERAL (
+                SELECT t.id
+                FROM transportation_import_keys i
+                JOIN transportations t ON t.id = i.transportation_id
+                WHERE i.origin_location_id = k.origin_id
+                  AND i.destination_location_id = k.destination_id
+                  AND i.transportation_type = k.transportation_type
+                  AND COALESCE(i.departure_time, '24:00') = COALESCE(k.departure_time, '24:00')
+                  AND t.origin_location_id = k.origin_id
+                  AND t.destination_location_id = k.destination_id
+                  AND t.transportation_type = k.transportation_type
+                  AND t.departure_time IS NOT DISTINCT FROM k.departure_time) m ON true
+            LEFT JOIN LATERAL (
+                SELECT min(t.id) AS id
+                FROM transportations t
+                WHERE t.origin_location_id = k.origin_id
+                  AND t.destination_location_id = k.destination_id
+                  AND t.transportation_type = k.transportation_type
+                  AND t.departure_time IS NOT DISTINCT FROM k.departure_time
+                  AND NOT EXISTS (SELECT 1 FROM transportation_import_keys o WHERE o.transportation_id = t.id)) f
+              ON m.id IS NULL""";
+    private static final String UPDATE_SQL = "UPDATE transportations"
+            + " SET operating_days = ?, operating_days_mask = ?, arrival_time = ? WHERE id = ?";
+    private static final String INSERT_SQL = """
+            WITH inserted AS (
+                INSERT INTO transportations (origin_location_id, destination_location_id, transportation_type,
+                                             operating_days, operating_days_mask, departure_time, arrival_time)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                RETURNING id, origin_location_id, destination_location_id, transportation_type, departure_time)
+            INSERT INTO transportation_import_keys (origin_location_id, destination_location_id, transportation_type,
+                                                    departure_time, transportation_id)
+            SELECT origin_location_id, destination_location_id, transportation_type, departure_time, id FROM inserted
+            ON CONFLICT (origin_location_id, destination_location_id, transportation_type,
+                         COALESCE(departure_time, '24:00'))
+                DO UPDATE SET transportation_id = EXCLUDED.transportation_id""";
+    private static final String MAP_KEY_SQL = """
+            INSERT INTO transportation_import_keys (origin_location_id, destination_location_id, transportation_type,
+                                                    departure_time, transportation_id)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (origin_location_id, destination_location_id, transportation_type,
+                         COALESCE(departure_time, '24:00'))
+                DO UPDATE SET transportation_id = EXCLUDED.transportation_id""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final RouteGraphProvider routeGraphProvider;
+    private final TransportationImportProperties properties;
+
+    private final Map<String, TransportationImportJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transportation-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues the jobs that were still queued or running when the application last stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() throws IOException {
+        if (!Files.isDirectory(properties.getDirectory())) {
+            return;
+        }
+        List<TransportationImportJob> unfinished = new ArrayList<>();
+        try (Stream<Path> files = Files.list(properties.getDirectory())) {
+            for (Path file : files.filter(f -> f.toString().endsWith(STATE_SUFFIX)).toList()) {
+                TransportationImportJob job = objectMapper.readValue(file.toFile(), TransportationImportJob.class);
+                jobs.put(job.getId(), job);
+                if (job.getStatus() == Status.QUEUED || job.getStatus() == Status.RUNNING) {
+                    unfinished.add(job);
+                }
+            }
+        }
+        unfinished.sort(Comparator.comparing(TransportationImportJob::getCreatedAt));
+        unfinished.forEach(this::submit);
+    }
+
+    public TransportationImportJob start(InputStream body, MediaType contentType) throws IOException {
+        Files.createDirectories(properties.getDirectory());
+        TransportationImportJob job = new TransportationImportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setStatus(Status.QUEUED);
+        job.setContentType(contentType.toString());
+        job.setCreatedAt(Instant.now());
+
+        Path upload = uploadPath(job.getId());
+        job.setBytesTotal(Files.copy(body, upload));
+        try (BufferedReader reader = open(job, Files.newInputStream(upload))) {
+            // Rejects a CSV without the required columns before the job is accepted
+            rowReader(job, reader);
+        } catch (ResponseStatusException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+
+        save(job);
+        submit(job);
+        return jobs.get(job.getId());
+    }
+
+    public TransportationImportJob getJob(String id) {
+        TransportationImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    String.format(ExceptionMessages.IMPORT_JOB_NOT_FOUND, id));
+        }
+        return job;
+    }
+
+    public TransportationImportJob resume(String id) {
+        TransportationImportJob job = objectMapper.convertValue(getJob(id), TransportationImportJob.class);
+        if (job.getStatus() != Status.FAILED || !Files.exists(uploadPath(id))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    String.format(ExceptionMessages.IMPORT_JOB_NOT_RESUMABLE, id, job.getStatus()));
+        }
+        job.setStatus(Status.QUEUED);
+        job.setError(null);
+        save(job);
+        submit(job);
+        return jobs.get(id);
+    }
+
+    private void submit(TransportationImportJob job) {
+        executor.execute(() -> run(job));
+    }
+
+    private void run(TransportationImportJob job) {
+        try {
+            job.setStatus(Status.RUNNING);
+            save(job);
+            Map<String, Long> locationIds = loadLocationIds();
+            try (CountingInputStream input = new CountingInputStream(Files.newInputStream(uploadPath(job.getId())));
+                 BufferedReader reader = open(job, input)) {
+                TransportationRowReader rows = rowReader(job, reader);
+                List<TransportationRow> chunk = new ArrayList<>(properties.getChunkSize());
+                for (TransportationRow row = rows.next(); row != null; row = rows.next()) {
+                    if (row.number() <= job.getCommittedRows()) {
+                        continue;
+                    }
+                    chunk.add(row);
+                    if (chunk.size() == properties.getChunkSize()) {
+                        commitChunk(job, chunk, locationIds);
+                        chunk.clear();
+                        job.setBytesRead(input.getCount());
+                        save(job);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    commitChunk(job, chunk, locationIds);
+                }
+            }
+
+            routeGraphProvider.reload();
+            job.setBytesRead(job.getBytesTotal());
+            job.setStatus(Status.COMPLETED);
+            job.setFinishedAt(Instant.now());
+            save(job);
+            Files.deleteIfExists(uploadPath(job.getId()));
+        } catch (Exception e) {
+            log.error("Transportation import {} failed after {} rows", job.getId(), job.getCommittedRows(), e);
+            job.setStatus(Status.FAILED);
+            job.setError(e.getMessage());
+            job.setFinishedAt(Instant.now());
+            try {
+                save(job);
+            } catch (UncheckedIOException stateError) {
+                log.error("Could not persist the state of transportation import {}", job.getId(), stateError);
+            }
+        }
+    }
+
+    private void commitChunk(TransportationImportJob job, List<TransportationRow> chunk,
+                             Map<String, Long> locationIds) {
+        // The last row of a key wins within a chunk, as it would across chunks
+        Map<NaturalKey, TransportationRow> upserts = new LinkedHashMap<>();
+        List<Issue> invalid = new ArrayList<>();
+        for (TransportationRow row : chunk) {
+            String error = row.error() != null ? row.error() : validate(row, locationIds);
+            if (error != null) {
+                invalid.add(new Issue(row.number(), error));
+                continue;
+            }
+            upserts.put(new NaturalKey(locationIds.get(row.originLocationCode()),
+                    locationIds.get(row.destinationLocationCode()), row.transportationType(), row.departureTime()),
+                    row);
+        }
+
+        int[] counts = transactionTemplate.execute(status -> upsert(upserts));
+
+        job.setInserted(job.getInserted() + counts[0]);
+        job.setUpdated(job.getUpdated() + counts[1]);
+        job.setInvalid(job.getInvalid() + invalid.size());
+        for (Issue issue : invalid) {
+            if (job.getIssues().size() < MAX_REPORTED_ISSUES) {
+                job.getIssues().add(issue);
+            }
+        }
+        job.setCommittedRows(chunk.get(chunk.size() - 1).number());
+    }
+
+    /**
+     * Writes one chunk and returns the number of inserted and updated rows.
+     */
+    private int[] upsert(Map<NaturalKey, TransportationRow> upserts) {
+        if (upserts.isEmpty()) {
+            return new int[2];
+        }
+        Map<NaturalKey, ExistingRow> existing = findExisting(upserts.keySet());
+        List<Map.Entry<Long, TransportationRow>> updates = new ArrayList<>();
+        List<Map.Entry<NaturalKey, TransportationRow>> inserts = new ArrayList<>();
+        List<Map.Entry<NaturalKey, Long>> adopted = new ArrayList<>();
+        for (Map.Entry<NaturalKey, TransportationRow> entry : upserts.entrySet()) {
+            ExistingRow row = existing.get(entry.getKey());
+            if (row == null) {
+                inserts.add(entry);
+            } else {
+                updates.add(Map.entry(row.id(), entry.getValue()));
+                if (!row.mapped()) {
+                    adopted.add(Map.entry(entry.getKey(), row.id()));
+                }
+            }
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                setOperatingDays(statement, 1, updates.get(i).getValue().operatingDays());
+                statement.setObject(3, updates.get(i).getValue().arrivalTime(), Types.TIME);
+                statement.setLong(4, updates.get(i).getKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return updates.size();
+            }
+        });
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                NaturalKey key = inserts.get(i).getKey();
+                statement.setLong(1, key.originId());
+                statement.setLong(2, key.destinationId());
+                statement.setString(3, key.type().name());
+                setOperatingDays(statement, 4, inserts.get(i).getValue().operatingDays());
+                statement.setObject(6, key.departureTime(), Types.TIME);
+                statement.setObject(7, inserts.get(i).getValue().arrivalTime(), Types.TIME);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return inserts.size();
+            }
+        });
+        jdbcTemplate.batchUpdate(MAP_KEY_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                NaturalKey key = adopted.get(i).getKey();
+                statement.setLong(1, key.originId());
+                statement.setLong(2, key.destinationId());
+                statement.setString(3, key.type().name());
+                statement.setObject(4, key.departureTime(), Types.TIME);
+                statement.setLong(5, adopted.get(i).getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return adopted.size();
+            }
+        });
+        return new int[]{inserts.size(), updates.size()};
+    }
+
+    private Map<NaturalKey, ExistingRow> findExisting(Iterable<NaturalKey> keys) {
+        List<Long> origins = new ArrayList<>();
+        List<Long> destinations = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        List<String> departures = new ArrayList<>();
+        for (NaturalKey key : keys) {
+            origins.add(key.originId());
+            destinations.add(key.destinationId());
+            types.add(key.type().name());
+            departures.add(key.departureTime() != null ? key.departureTime().toString() : null);
+        }
+
+        Map<NaturalKey, ExistingRow> existing = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_EXISTING_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", origins.toArray()));
+            statement.setArray(2, connection.createArrayOf("bigint", destinations.toArray()));
+            statement.setArray(3, connection.createArrayOf("varchar", types.toArray()));
+            statement.setArray(4, connection.createArrayOf("time", departures.toArray()));
+            return statement;
+        }, resultSet -> {
+            if (resultSet.getObject("id") == null) {
+                return;
+            }
+            NaturalKey key = new NaturalKey(resultSet.getLong("origin_id"), resultSet.getLong("destination_id"),
+                    TransportationType.valueOf(resultSet.getString("transportation_type")),
+                    resultSet.getObject("departure_time", LocalTime.class));
+            existing.put(key, new ExistingRow(resultSet.getLong("id"), resultSet.getBoolean("mapped")));
+        });
+        return existing;
+    }
+
+    // Writes operating_days and the derived operating_days_mask the entity would have written
+    private static void setOperatingDays(PreparedStatement statement, int index, List<Integer> days)
+            throws SQLException {
+        List<Integer> normalized = OperatingDays.normalize(days);
+        statement.setArray(index, statement.getConnection().createArrayOf("integer", normalized.toArray()));
+        statement.setInt(index + 1, OperatingDays.toMask(normalized));
+    }
+
+    private String validate(TransportationRow row, Map<String, Long> locationIds) {
+        if (row.originLocationCode() == null || row.originLocationCode().isEmpty()
+                || row.destinationLocationCode() == null || row.destinationLocationCode().isEmpty()
+                || row.transportationType() == null) {
+            return ExceptionMessages.IMPORT_MISSING_FIELDS;
+        }
+        if ((row.departureTime() == null) != (row.arrivalTime() == null)) {
+            return ExceptionMessages.INCOMPLETE_SCHEDULE;
+        }
+        if (!locationIds.containsKey(row.originLocationCode())) {
+            return String.format(ExceptionMessages.IMPORT_UNKNOWN_LOCATION, row.originLocationCode());
+        }
+        if (!locationIds.containsKey(row.destinationLocationCode())) {
+            return String.format(ExceptionMessages.IMPORT_UNKNOWN_LOCATION, row.destinationLocationCode());
+        }
+        return null;
+    }
+
+    private Map<String, Long> loadLocationIds() {
+        Map<String, Long> locationIds = new HashMap<>();
+        jdbcTemplate.query(LOCATION_IDS_SQL,
+                resultSet -> {
+                    locationIds.put(resultSet.getString("location_code"), resultSet.getLong("id"));
+                });
+        return locationIds;
+    }
+
+    private TransportationRowReader rowReader(TransportationImportJob job, BufferedReader reader) throws IOException {
+        return MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(job.getContentType()))
+                ? TransportationRowReader.ndjson(reader, objectMapper)
+                : TransportationRowReader.csv(reader);
+    }
+
+    private BufferedReader open(TransportationImportJob job, InputStream input) {
+        Charset charset = MediaType.parseMediaType(job.getContentType()).getCharset();
+        return new BufferedReader(new InputStreamReader(input, charset != null ? charset : StandardCharsets.UTF_8));
+    }
+
+    // Publishes a copy for status requests and persists the state for resumption
+    private void save(TransportationImportJob job) {
+        TransportationImportJob copy = objectMapper.convertValue(job, TransportationImportJob.class);
+        jobs.put(job.getId(), copy);
+        Path state = properties.getDirectory().resolve(job.getId() + STATE_SUFFIX);
+        Path temporary = properties.getDirectory().resolve(job.getId() + STATE_SUFFIX + ".tmp");
+        try {
+            objectMapper.writeValue(temporary.toFile(), copy);
+            Files.move(temporary, state, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path uploadPath(String id) {
+        return properties.getDirectory().resolve(id + UPLOAD_SUFFIX);
+    }
+
+    private record NaturalKey(long originId, long destinationId, TransportationType type, LocalTime departureTime) {
+    }
+
+    // A row the key was imported into before, or one it takes over (mapped is false)
+    private record ExistingRow(long id, boolean mapped) {
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -1,15 +1,25 @@
 package com.ttech.service;
 
+import com.ttech.cache.LocationCache;
 import com.ttech.constant.ExceptionMessages;
+import com.ttech.dto.requests.TotalCount;
 import com.ttech.dto.requests.TransportationFilterRequest;
+import com.ttech.dto.responses.CursorPage;
+import com.ttech.graph.RouteGraphChange;
 import com.ttech.model.Location;
 import com.ttech.model.Transportation;
-import com.ttech.repository.LocationRepository;
+import com.ttech.pagination.KeysetCursor;
 import com.ttech.repository.TransportationRepository;
 import com.ttech.specifications.TransportationSpecifications;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -19,13 +29,67 @@ import org.springframework.http.HttpStatus;
 @RequiredArgsConstructor
 public class TransportationService {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+
     private final TransportationRepository transportationRepository;
-    private final LocationRepository locationRepository;
+    private final LocationCache locationCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
 
     public Page<Transportation> getAllTransportations(TransportationFilterRequest filter, Pageable pageable) {
+        Specification<Transportation> spec = resolveFilter(filter, "list");
+        return queryTimer("list").record(() -> transportationRepository.findAll(spec, pageable));
+    }
+
+    /**
+     * Returns the page after the cursor in id order. Pages start with an index seek past the last id, so
+     * their cost does not grow with depth.
+     */
+    public CursorPage<Transportation> scrollTransportations(TransportationFilterRequest filter,
+                                                            Sort.Direction sortOrder, int size, String cursor,
+                                                            TotalCount totalCount) {
+        Sort sort = Sort.by(sortOrder, "id");
+        ScrollPosition position = KeysetCursor.decode(cursor, sort);
+        int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+
+        Specification<Transportation> spec = resolveFilter(filter, "scroll");
+        return queryTimer("scroll").record(() -> {
+            Window<Transportation> window = transportationRepository.findBy(
+                    spec.and(TransportationSpecifications.fetchLocations()),
+                    query -> query.sortBy(sort).limit(limit).scroll(position));
+            return CursorPage.of(window, total(spec, isFiltered(filter), totalCount));
+        });
+    }
+
+    private Long total(Specification<Transportation> spec, boolean filtered, TotalCount totalCount) {
+        if (totalCount == TotalCount.estimated && !filtered) {
+            long estimate = transportationRepository.estimateCount();
+            if (estimate >= 0) {
+                return estimate;
+            }
+        }
+        return totalCount == TotalCount.none ? null : transportationRepository.count(spec);
+    }
+
+    private static boolean isFiltered(TransportationFilterRequest filter) {
+        return filter.getOriginLocationCode() != null || filter.getDestinationLocationCode() != null
+                || filter.getDate() != null;
+    }
+
+    // Location resolution and the query itself are timed apart
+    private Specification<Transportation> resolveFilter(TransportationFilterRequest filter, String operation) {
+        return meterRegistry.timer("transportation.query", "operation", operation, "phase", "resolve")
+                .record(() -> filterSpecification(filter));
+    }
+
+    private Timer queryTimer(String operation) {
+        return meterRegistry.timer("transportation.query", "operation", operation, "phase", "query");
+    }
+
+    private Specification<Transportation> filterSpecification(TransportationFilterRequest filter) {
         Location origin = null;
         if (filter.getOriginLocationCode() != null) {
-            origin = locationRepository.findByLocationCode(filter.getOriginLocationCode());
+            origin = locationCache.findByCode(filter.getOriginLocationCode());
             if (origin == null) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                         String.format(ExceptionMessages.INVALID_ORIGIN_LOCATION, filter.getOriginLocationCode()));
@@ -34,20 +98,18 @@ public class TransportationService {
 
         Location destination = null;
         if (filter.getDestinationLocationCode() != null) {
-            destination = locationRepository.findByLocationCode(filter.getDestinationLocationCode());
+            destination = locationCache.findByCode(filter.getDestinationLocationCode());
             if (destination == null) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                         String.format(ExceptionMessages.INVALID_DESTINATION_LOCATION, filter.getDestinationLocationCode()));
             }
         }
 
-        Specification<Transportation> spec = Specification
+        return Specification
                 .where(TransportationSpecifications.hasOrigin(origin))
                 .and(TransportationSpecifications.hasDestination(destination))
                 .and(TransportationSpecifications.operatesOnDay(
                         filter.getDate() != null ? filter.getDate().getDayOfWeek() : null));
-
-        return transportationRepository.findAll(spec, pageable);
     }
 
     public Transportation getTransportationById(Long id) {
@@ -57,20 +119,28 @@ public class TransportationService {
     }
 
     public Transportation createTransportation(Transportation transportation) {
-        return transportationRepository.save(transportation);
+        validateSchedule(transportation);
+        Transportation created = transportationRepository.save(transportation);
+        eventPublisher.publishEvent(RouteGraphChange.transportationSaved(created));
+        return created;
     }
 
     public Transportation updateTransportation(Long id, Transportation transportationDetails) {
         Transportation existing = transportationRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         String.format(ExceptionMessages.TRANSPORTATION_NOT_FOUND, id)));
+        validateSchedule(transportationDetails);
 
         existing.setOriginLocation(transportationDetails.getOriginLocation());
         existing.setDestinationLocation(transportationDetails.getDestinationLocation());
         existing.setTransportationType(transportationDetails.getTransportationType());
         existing.setOperatingDays(transportationDetails.getOperatingDays());
+        existing.setDepartureTime(transportationDetails.getDepartureTime());
+        existing.setArrivalTime(transportationDetails.getArrivalTime());
 
-        return transportationRepository.save(existing);
+        Transportation updated = transportationRepository.save(existing);
+        eventPublisher.publishEvent(RouteGraphChange.transportationSaved(updated));
+        return updated;
     }
 
     public void deleteTransportation(Long id) {
@@ -78,5 +148,12 @@ public class TransportationService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         String.format(ExceptionMessages.TRANSPORTATION_NOT_FOUND, id)));
         transportationRepository.delete(transportation);
+        eventPublisher.publishEvent(RouteGraphChange.transportationDeleted(id));
+    }
+
+    private void validateSchedule(Transportation transportation) {
+        if ((transportation.getDepartureTime() == null) != (transportation.getArrivalTime() == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ExceptionMessages.INCOMPLETE_SCHEDULE);
+        }
     }
 }
@@ -0,0 +1,22 @@
+package com.ttech.specifications;
+
+import com.ttech.model.Location;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Locale;
+
+public class LocationSpecifications {
+
+    // Same matching as findByNameContainingIgnoreCaseOrLocationCodeContainingIgnoreCase
+    public static Specification<Location> nameOrCodeContains(String search) {
+        if (search == null || search.trim().isEmpty())
+            return null;
+
+        String escaped = search.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        String pattern = "%" + escaped + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.get("name")), pattern, '\\'),
+                cb.like(cb.lower(root.get("locationCode")), pattern, '\\'));
+    }
+}
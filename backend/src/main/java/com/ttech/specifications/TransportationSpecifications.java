@@ -4,6 +4,7 @@ import com.ttech.model.Transportation;
 import com.ttech.model.Location;
 import org.springframework.data.jpa.domain.Specification;
 import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.JoinType;
 
 import java.time.DayOfWeek;
 
@@ -17,17 +18,28 @@ public class TransportationSpecifications {
         return (root, query, cb) -> destination != null ? cb.equal(root.get("destinationLocation"), destination) : null;
     }
 
+    // Loads both locations in the same select; count queries cannot fetch and are left alone
+    public static Specification<Transportation> fetchLocations() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("originLocation", JoinType.INNER);
+                root.fetch("destinationLocation", JoinType.INNER);
+            }
+            return null;
+        };
+    }
+
     public static Specification<Transportation> operatesOnDay(DayOfWeek dayOfWeek) {
         if (dayOfWeek == null)
             return null;
 
         return (root, query, cb) -> {
-            Expression<Integer> arrayPos = cb.function(
-                    "ARRAY_POSITION", Integer.class,
+            Expression<Boolean> operates = cb.function(
+                    "array_has", Boolean.class,
                     root.get("operatingDays"),
                     cb.literal(dayOfWeek.getValue()));
 
-            return cb.gt(arrayPos, 0); // ARRAY_POSITION(...) > 0
+            return cb.isTrue(operates); // operating_days @> ARRAY[day], served by the GIN index
         };
     }
 }
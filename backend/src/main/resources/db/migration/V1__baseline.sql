@@ -0,0 +1,19 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update). Existing databases are baselined at
+-- this version and skip it; IF NOT EXISTS keeps it harmless on a partially created schema.
+
+CREATE TABLE IF NOT EXISTS locations (
+    id            bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name          varchar(255) NOT NULL,
+    country       varchar(255) NOT NULL,
+    city          varchar(255) NOT NULL,
+    location_code varchar(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS transportations (
+    id                      bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    origin_location_id      bigint       NOT NULL REFERENCES locations (id),
+    destination_location_id bigint       NOT NULL REFERENCES locations (id),
+    transportation_type     varchar(255) NOT NULL
+        CHECK (transportation_type IN ('FLIGHT', 'BUS', 'SUBWAY', 'UBER')),
+    operating_days          integer[]
+);
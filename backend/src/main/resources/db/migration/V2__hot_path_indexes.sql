@@ -0,0 +1,41 @@
+-- Weekday bitmask of operating_days, read by the route graph loader
+ALTER TABLE transportations ADD COLUMN IF NOT EXISTS operating_days_mask integer;
+
+-- A missing or empty day list used to mean "every day". Spell the days out so containment (@>) on the
+-- array matches those rows too, and compute the masks the graph loader used to backfill at startup.
+UPDATE transportations
+SET operating_days = '{1,2,3,4,5,6,7}'
+WHERE operating_days IS NULL OR cardinality(operating_days) = 0;
+
+UPDATE transportations t
+SET operating_days_mask = (SELECT COALESCE(bit_or(1 << (d - 1)), 0)
+                           FROM unnest(t.operating_days) AS d
+                           WHERE d BETWEEN 1 AND 7)
+WHERE operating_days_mask IS NULL;
+
+ALTER TABLE transportations
+    ALTER COLUMN operating_days SET NOT NULL,
+    ALTER COLUMN operating_days_mask SET NOT NULL;
+
+-- Keyset pagination indexes, the id breaking ties
+CREATE INDEX IF NOT EXISTS idx_locations_name_id ON locations (name, id);
+CREATE INDEX IF NOT EXISTS idx_locations_country_id ON locations (country, id);
+CREATE INDEX IF NOT EXISTS idx_locations_city_id ON locations (city, id);
+CREATE INDEX IF NOT EXISTS idx_transportations_origin_id ON transportations (origin_location_id, id);
+CREATE INDEX IF NOT EXISTS idx_transportations_destination_id ON transportations (destination_location_id, id);
+
+-- Transportation filters by origin or destination, optionally narrowed by type
+CREATE INDEX IF NOT EXISTS idx_transportations_origin_type
+    ON transportations (origin_location_id, transportation_type);
+CREATE INDEX IF NOT EXISTS idx_transportations_destination_type
+    ON transportations (destination_location_id, transportation_type);
+
+-- Day filter: operating_days @> ARRAY[day]
+CREATE INDEX IF NOT EXISTS idx_transportations_operating_days
+    ON transportations USING gin (operating_days);
+
+-- Case-insensitive substring search: lower(column) LIKE '%term%'
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_locations_name_trgm ON locations USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_locations_location_code_trgm ON locations USING gin (lower(location_code) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_locations_city_trgm ON locations USING gin (lower(city) gin_trgm_ops);
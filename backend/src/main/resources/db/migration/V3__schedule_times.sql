@@ -0,0 +1,16 @@
+-- Scheduled legs: local departure and arrival time, an arrival before the departure lands the next day.
+-- Legs without times stay valid for the weekday route search but are left out of the timetable.
+ALTER TABLE transportations
+    ADD COLUMN IF NOT EXISTS departure_time time,
+    ADD COLUMN IF NOT EXISTS arrival_time time;
+
+ALTER TABLE transportations
+    ADD CONSTRAINT chk_transportations_schedule
+        CHECK ((departure_time IS NULL) = (arrival_time IS NULL));
+
+-- Minimum time between arriving at a location and leaving it again; null falls back to the configured default
+ALTER TABLE locations
+    ADD COLUMN IF NOT EXISTS min_connection_minutes integer;
+
+ALTER TABLE locations
+    ADD CONSTRAINT chk_locations_min_connection_minutes CHECK (min_connection_minutes >= 0);
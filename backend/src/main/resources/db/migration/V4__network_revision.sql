@@ -0,0 +1,34 @@
+-- Revision of the route network, raised by every transaction that changes locations or transportations.
+-- Route graph snapshots on disk record the revision they were built at and are only reused while it holds.
+CREATE TABLE IF NOT EXISTS route_network_revision (
+    id       integer PRIMARY KEY CHECK (id = 1),
+    revision bigint NOT NULL,
+    -- Transaction that last raised the revision, so a bulk write raises it once
+    last_xid bigint
+);
+
+INSERT INTO route_network_revision (id, revision) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
+
+-- The first write of a transaction updates this single row and holds its lock until commit, so transactions
+-- changing locations or transportations commit one after another while reads never wait. Those writes are
+-- admin edits and the single-worker bulk import committing in chunks, so the queue stays short. A sequence
+-- would not block, but nextval is visible before its transaction commits: a graph loaded in between would be
+-- saved under a revision whose changes it does not contain.
+CREATE OR REPLACE FUNCTION bump_route_network_revision() RETURNS trigger AS $$
+BEGIN
+    UPDATE route_network_revision
+    SET revision = revision + 1, last_xid = txid_current()
+    WHERE id = 1 AND last_xid IS DISTINCT FROM txid_current();
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_locations_network_revision ON locations;
+CREATE TRIGGER trg_locations_network_revision
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON locations
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_route_network_revision();
+
+DROP TRIGGER IF EXISTS trg_transportations_network_revision ON transportations;
+CREATE TRIGGER trg_transportations_network_revision
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON transportations
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_route_network_revision();
@@ -0,0 +1,15 @@
+-- The bulk import upserts on origin, destination, type and departure. Transportations themselves may repeat
+-- that key, e.g. parallel unscheduled legs created one by one, so the importer records here which row each
+-- imported key maps to and only ever updates that row. Unscheduled legs have no departure and share one key
+-- per origin, destination and type; time only goes up to 24:00 for that key, which no departure can equal.
+CREATE TABLE IF NOT EXISTS transportation_import_keys (
+    origin_location_id      bigint       NOT NULL,
+    destination_location_id bigint       NOT NULL,
+    transportation_type     varchar(255) NOT NULL,
+    departure_time          time,
+    transportation_id       bigint       NOT NULL UNIQUE REFERENCES transportations (id) ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_transportation_import_keys
+    ON transportation_import_keys (origin_location_id, destination_location_id, transportation_type,
+                                   COALESCE(departure_time, '24:00'));
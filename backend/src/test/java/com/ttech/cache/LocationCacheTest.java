@@ -0,0 +1,102 @@
+package com.ttech.cache;
+
+import com.ttech.graph.RouteGraphChange;
+import com.ttech.graph.RouteGraphProvider;
+import com.ttech.model.Location;
+import com.ttech.repository.LocationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationCacheTest {
+
+    @Mock
+    private LocationRepository locationRepository;
+
+    @Mock
+    private RouteGraphProvider routeGraphProvider;
+
+    private LocationCache locationCache;
+
+    @BeforeEach
+    void setUp() {
+        locationCache = new LocationCache(locationRepository, routeGraphProvider, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldReadThroughOnceThenHit() {
+        Location istanbul = location(1L, "IST");
+        when(locationRepository.findByLocationCode("IST")).thenReturn(istanbul);
+
+        assertSame(istanbul, locationCache.findByCode("IST"));
+        assertSame(istanbul, locationCache.findByCode("IST"));
+        assertEquals(Optional.of(istanbul), locationCache.findById(1L));
+
+        verify(locationRepository, times(1)).findByLocationCode("IST");
+        verify(locationRepository, never()).findById(any());
+    }
+
+    @Test
+    void shouldEvictOldCodeWhenCodeChanges() {
+        when(locationRepository.findByLocationCode("IST")).thenReturn(location(1L, "IST"));
+        locationCache.findByCode("IST");
+        Location renamed = location(1L, "ISL");
+
+        when(locationRepository.findByLocationCode("IST")).thenReturn(null);
+        locationCache.onLocationSaved(new RouteGraphChange.LocationSaved(renamed));
+
+        assertNull(locationCache.findByCode("IST"));
+        assertSame(renamed, locationCache.findByCode("ISL"));
+        assertEquals(Optional.of(renamed), locationCache.findById(1L));
+        verify(locationRepository, never()).findByLocationCode("ISL");
+    }
+
+    @Test
+    void shouldEvictDeletedLocation() {
+        when(locationRepository.findByLocationCode("IST")).thenReturn(location(1L, "IST"));
+        locationCache.findByCode("IST");
+
+        when(locationRepository.findByLocationCode("IST")).thenReturn(null);
+        when(locationRepository.findById(1L)).thenReturn(Optional.empty());
+        locationCache.onLocationDeleted(new RouteGraphChange.LocationDeleted(1L));
+
+        assertNull(locationCache.findByCode("IST"));
+        assertTrue(locationCache.findById(1L).isEmpty());
+    }
+
+    @Test
+    void shouldNotCacheUnknownCode() {
+        Location created = location(2L, "SAW");
+        when(locationRepository.findByLocationCode("SAW")).thenReturn(null, created);
+
+        assertNull(locationCache.findByCode("SAW"));
+        assertSame(created, locationCache.findByCode("SAW"));
+        verify(locationRepository, times(2)).findByLocationCode("SAW");
+    }
+
+    private static Location location(Long id, String code) {
+        Location location = new Location();
+        location.setId(id);
+        location.setLocationCode(code);
+        location.setName(code + " Airport");
+        location.setCity(code);
+        location.setCountry("Turkey");
+        return location;
+    }
+}
@@ -1,6 +1,9 @@
 package com.ttech.controller;
 
+import com.ttech.dto.requests.ReachabilityRequest;
 import com.ttech.dto.requests.RouteSearchRequest;
+import com.ttech.dto.responses.ReachableDestination;
+import com.ttech.metrics.SearchTrace;
 import com.ttech.model.Location;
 import com.ttech.model.Transportation;
 import com.ttech.service.RouteService;
@@ -9,17 +12,31 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(RouteController.class)
@@ -90,6 +107,31 @@ class RouteControllerTest {
                 .andExpect(jsonPath("$.data[0][1].transportationType").value("BUS"));
     }
 
+    @Test
+    void findRoutes_TimingOnlyWithDebugTiming() throws Exception {
+        List<List<Transportation>> expectedRoutes = Collections.singletonList(Arrays.asList(flight, bus));
+        when(routeService.findValidRoutes(any(RouteSearchRequest.class))).thenReturn(expectedRoutes);
+        when(routeService.findValidRoutes(any(RouteSearchRequest.class), any(SearchTrace.class)))
+                .thenReturn(expectedRoutes);
+
+        mockMvc.perform(get("/api/routes/search")
+                        .param("originLocationCode", "IST")
+                        .param("destinationLocationCode", "IZM"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0][0].transportationType").value("FLIGHT"))
+                .andExpect(jsonPath("$.timing").doesNotExist());
+
+        mockMvc.perform(get("/api/routes/search")
+                        .param("originLocationCode", "IST")
+                        .param("destinationLocationCode", "IZM")
+                        .param("debug", "timing"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0][0].transportationType").value("FLIGHT"))
+                .andExpect(jsonPath("$.timing.totalMillis").exists())
+                .andExpect(jsonPath("$.timing.filterMillis").exists())
+                .andExpect(jsonPath("$.timing.routesFound").exists());
+    }
+
     @Test
     void findRoutes_SuccessfulWithoutDate() throws Exception {
         List<List<Transportation>> expectedRoutes = Collections.singletonList(Arrays.asList(flight, bus));
@@ -104,6 +146,24 @@ class RouteControllerTest {
                 .andExpect(jsonPath("$.data[0][1].transportationType").value("BUS"));
     }
 
+    @Test
+    void findRoutes_CompactView() throws Exception {
+        List<List<Transportation>> expectedRoutes = Collections.singletonList(Arrays.asList(flight, bus));
+        when(routeService.findValidRoutes(any(RouteSearchRequest.class))).thenReturn(expectedRoutes);
+
+        mockMvc.perform(get("/api/routes/search")
+                        .param("originLocationCode", "IST")
+                        .param("destinationLocationCode", "IZM")
+                        .param("view", "compact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.locations.IST.name").value("Istanbul"))
+                .andExpect(jsonPath("$.data.legs[0].transportationType").value("FLIGHT"))
+                .andExpect(jsonPath("$.data.legs[1].origin").value("ANK"))
+                .andExpect(jsonPath("$.data.routes[0][0]").value(0))
+                .andExpect(jsonPath("$.data.routes[0][1]").value(1));
+    }
+
     @Test
     void findRoutes_InvalidLocationCode() throws Exception {
         when(routeService.findValidRoutes(any(RouteSearchRequest.class))).thenReturn(Collections.emptyList());
@@ -136,4 +196,101 @@ class RouteControllerTest {
                 .andExpect(jsonPath("$.data").isArray())
                 .andExpect(jsonPath("$.data").isEmpty());
     }
+
+    @Test
+    void findRoutesByDate_ReturnsRoutesPerDate() throws Exception {
+        LocalDate monday = LocalDate.of(2024, 5, 13);
+        Map<LocalDate, List<List<Transportation>>> expectedRoutes = new LinkedHashMap<>();
+        expectedRoutes.put(monday, Collections.singletonList(Arrays.asList(flight, bus)));
+        expectedRoutes.put(monday.plusDays(1), Collections.emptyList());
+        when(routeService.findValidRoutesByDate(any(RouteSearchRequest.class))).thenReturn(expectedRoutes);
+
+        mockMvc.perform(get("/api/routes/search/range")
+                        .param("originLocationCode", "IST")
+                        .param("destinationLocationCode", "IZM")
+                        .param("dateFrom", "2024-05-13")
+                        .param("dateTo", "2024-05-14"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data['2024-05-13'][0][0].transportationType").value("FLIGHT"))
+                .andExpect(jsonPath("$.data['2024-05-14']").isEmpty());
+    }
+
+    @Test
+    void findReachableDestinations_ReturnsCountsPerLocation() throws Exception {
+        when(routeService.findReachableDestinations(any(ReachabilityRequest.class))).thenReturn(List.of(
+                new ReachableDestination(ankara, 1, 1), new ReachableDestination(izmir, 3, 2)));
+
+        mockMvc.perform(get("/api/routes/reachable")
+                        .param("originLocationCode", "IST"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].location.locationCode").value("ANK"))
+                .andExpect(jsonPath("$.data[1].routeCount").value(3))
+                .andExpect(jsonPath("$.data[1].minLegs").value(2));
+    }
+
+    @Test
+    void findReachableDestinations_MissingOrigin() throws Exception {
+        mockMvc.perform(get("/api/routes/reachable"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamRoutes_WritesOneRoutePerLine() throws Exception {
+        List<Transportation> direct = Collections.singletonList(flight);
+        List<Transportation> withBus = Arrays.asList(flight, bus);
+        when(routeService.streamValidRoutes(any(RouteSearchRequest.class))).thenReturn(action -> {
+            action.accept(direct);
+            action.accept(withBus);
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/routes/search/stream")
+                        .param("originLocationCode", "IST")
+                        .param("destinationLocationCode", "IZM"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("[{"));
+        assertTrue(lines[1].contains("\"transportationType\":\"BUS\""));
+    }
+
+    @Test
+    void streamRoutes_InvalidLocationCode() throws Exception {
+        when(routeService.streamValidRoutes(any(RouteSearchRequest.class)))
+                .thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid originLocationCode: INVALID"));
+
+        mockMvc.perform(get("/api/routes/search/stream")
+                        .param("originLocationCode", "INVALID")
+                        .param("destinationLocationCode", "IZM"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findRoutesBatch_ReturnsResultsInOrderWithPerItemErrors() throws Exception {
+        List<List<Transportation>> expectedRoutes = Collections.singletonList(Arrays.asList(flight, bus));
+        when(routeService.findValidRoutes(anyList())).thenReturn(List.of(
+                CompletableFuture.completedFuture(expectedRoutes),
+                CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Invalid originLocationCode: INVALID"))));
+
+        MvcResult result = mockMvc.perform(post("/api/routes/search/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"originLocationCode\":\"IST\",\"destinationLocationCode\":\"IZM\"},"
+                                + "{\"originLocationCode\":\"INVALID\",\"destinationLocationCode\":\"IZM\"}]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[0].data[0][0].transportationType").value("FLIGHT"))
+                .andExpect(jsonPath("$[1].success").value(false))
+                .andExpect(jsonPath("$[1].message").value("Invalid originLocationCode: INVALID"));
+    }
 }
@@ -0,0 +1,64 @@
+package com.ttech.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ConcurrencyLimitedDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    @Mock
+    private Connection connection;
+
+    private ConcurrencyLimitedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new ConcurrencyLimitedDataSource(target, 1, Duration.ofMillis(50));
+    }
+
+    @Test
+    void shouldReleaseOnePermitWhenClosedTwice() throws Exception {
+        when(target.getConnection()).thenReturn(connection);
+
+        Connection first = dataSource.getConnection();
+        assertEquals(0, dataSource.availablePermits());
+        first.close();
+        first.close();
+
+        assertEquals(1, dataSource.availablePermits());
+        verify(connection, times(2)).close();
+        Connection second = dataSource.getConnection();
+        assertEquals(0, dataSource.availablePermits());
+        second.close();
+    }
+
+    @Test
+    void shouldTimeOutWhenNoPermitIsFree() throws Exception {
+        when(target.getConnection()).thenReturn(connection);
+        Connection held = dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        verify(target, times(1)).getConnection();
+        assertEquals(0, dataSource.waitingThreads());
+        held.close();
+        assertEquals(1, dataSource.availablePermits());
+    }
+}
@@ -0,0 +1,119 @@
+package com.ttech.dto.responses;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ttech.model.Location;
+import com.ttech.model.Transportation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRouteResponseTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private Location createLocation(long id, String code) {
+        Location l = new Location();
+        l.setId(id);
+        l.setLocationCode(code);
+        l.setName(code + " International Airport");
+        l.setCity(code + " City");
+        l.setCountry("Turkey");
+        return l;
+    }
+
+    private Transportation createTransport(long id, Location from, Location to, Transportation.TransportationType type) {
+        Transportation t = new Transportation();
+        t.setId(id);
+        t.setOriginLocation(from);
+        t.setDestinationLocation(to);
+        t.setTransportationType(type);
+        t.setOperatingDays(Arrays.asList(1, 2, 3, 4, 5, 6, 7));
+        return t;
+    }
+
+    // 20 ground legs into the hub x 20 flights out of it x 1 ground leg each: 400 routes over 60 legs
+    private List<List<Transportation>> hubRoutes() {
+        Location hub = createLocation(1L, "IST");
+        Location destination = createLocation(2L, "ESB");
+        List<Transportation> feeders = new ArrayList<>();
+        List<Transportation> flights = new ArrayList<>();
+        List<Transportation> transfers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Location spoke = createLocation(10L + i, "S" + i);
+            Location gateway = createLocation(100L + i, "G" + i);
+            feeders.add(createTransport(1000L + i, spoke, hub, Transportation.TransportationType.BUS));
+            Transportation flight = createTransport(2000L + i, hub, gateway, Transportation.TransportationType.FLIGHT);
+            flight.setDepartureTime(LocalTime.of(6 + i / 2, 30 * (i % 2)));
+            flight.setArrivalTime(flight.getDepartureTime().plusMinutes(75));
+            flights.add(flight);
+            transfers.add(createTransport(3000L + i, gateway, destination, Transportation.TransportationType.UBER));
+        }
+        List<List<Transportation>> routes = new ArrayList<>();
+        for (Transportation feeder : feeders) {
+            for (int i = 0; i < flights.size(); i++) {
+                routes.add(List.of(feeder, flights.get(i), transfers.get(i)));
+            }
+        }
+        return routes;
+    }
+
+    @Test
+    void shouldListEachLegOnceAndReferenceItByIndex() {
+        List<List<Transportation>> routes = hubRoutes();
+
+        CompactRouteResponse response = CompactRouteResponse.from(routes);
+
+        assertEquals(400, response.getRoutes().size());
+        assertEquals(60, response.getLegs().size());
+        assertEquals(42, response.getLocations().size());
+        for (int r = 0; r < routes.size(); r++) {
+            int[] legs = response.getRoutes().get(r);
+            for (int i = 0; i < legs.length; i++) {
+                assertEquals(routes.get(r).get(i).getId(), response.getLegs().get(legs[i]).getId());
+            }
+        }
+    }
+
+    @Test
+    void shouldSerializeSmallerThanFullRoutes() throws Exception {
+        List<List<Transportation>> routes = hubRoutes();
+
+        byte[] full = objectMapper.writeValueAsBytes(ApiResponse.success(routes));
+        byte[] compact = objectMapper.writeValueAsBytes(ApiResponse.success(CompactRouteResponse.from(routes)));
+
+        assertTrue(compact.length * 5 < full.length);
+    }
+
+    @Test
+    void shouldRoundTripThroughJson() throws Exception {
+        List<List<Transportation>> routes = hubRoutes();
+
+        byte[] json = objectMapper.writeValueAsBytes(ApiResponse.success(CompactRouteResponse.from(routes)));
+        CompactRouteResponse read = objectMapper.readValue(json,
+                new TypeReference<ApiResponse<CompactRouteResponse>>() { }).getData();
+
+        assertEquals(routes.size(), read.getRoutes().size());
+        for (int r = 0; r < routes.size(); r++) {
+            int[] legs = read.getRoutes().get(r);
+            assertEquals(routes.get(r).size(), legs.length);
+            for (int i = 0; i < legs.length; i++) {
+                Transportation expected = routes.get(r).get(i);
+                CompactRouteResponse.Leg leg = read.getLegs().get(legs[i]);
+                assertEquals(expected.getId(), leg.getId());
+                assertEquals(expected.getTransportationType(), leg.getTransportationType());
+                assertEquals(expected.getOperatingDays(), leg.getOperatingDays());
+                assertEquals(expected.getDepartureTime(), leg.getDepartureTime());
+                assertEquals(expected.getArrivalTime(), leg.getArrivalTime());
+                assertEquals(expected.getOriginLocation(), read.getLocations().get(leg.getOrigin()));
+                assertEquals(expected.getDestinationLocation(), read.getLocations().get(leg.getDestination()));
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ttech.graph;
+
+import com.ttech.model.Transportation.TransportationType;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+import static com.ttech.graph.RouteGraphFixtures.EVERY_DAY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionScanTest {
+
+    private static final int ORIGIN = 0;
+    private static final int DESTINATION = 1;
+    private static final int HUB = 2;
+    private static final int STATION = 3;
+    private static final int TUESDAY = 0x02;
+    private static final int SUNDAY = 0x40;
+
+    @Test
+    void shouldReturnEarliestArrivalThenFewerLegs() {
+        RouteGraphBuilder builder = builder();
+        builder.addEdge(1, ORIGIN, DESTINATION, TransportationType.FLIGHT, EVERY_DAY, 600, 780);
+        builder.addEdge(2, ORIGIN, HUB, TransportationType.FLIGHT, EVERY_DAY, 480, 540);
+        builder.addEdge(3, HUB, DESTINATION, TransportationType.BUS, EVERY_DAY, 560, 600);
+        builder.addEdge(4, HUB, DESTINATION, TransportationType.BUS, EVERY_DAY, 580, 630);
+        RouteGraph graph = builder.build(1L);
+
+        List<ConnectionScan.Journey> journeys = search(graph, 0, 30);
+
+        assertEquals(2, journeys.size());
+        assertEquals(new ConnectionScan.Journey(RouteFinder.NO_LEG, graph.edgeOf(2), graph.edgeOf(4), 480, 630),
+                journeys.get(0));
+        assertEquals(new ConnectionScan.Journey(RouteFinder.NO_LEG, graph.edgeOf(1), RouteFinder.NO_LEG, 600, 780),
+                journeys.get(1));
+
+        // With a longer minimum connection time the bus is missed and the direct flight is the only option
+        assertEquals(List.of(journeys.get(1)), search(graph, 0, 45));
+        // Leaving after the first flight leaves only the direct one
+        assertEquals(List.of(journeys.get(1)), search(graph, 481, 30));
+    }
+
+    @Test
+    void shouldChainGroundFlightGroundAcrossMidnight() {
+        RouteGraphBuilder builder = builder();
+        builder.addEdge(1, ORIGIN, STATION, TransportationType.SUBWAY, EVERY_DAY, 1200, 1230);
+        builder.addEdge(2, STATION, HUB, TransportationType.FLIGHT, EVERY_DAY, 1300, 1380);
+        builder.addEdge(3, HUB, DESTINATION, TransportationType.UBER, EVERY_DAY, 1420, 10);
+        builder.addEdge(4, ORIGIN, DESTINATION, TransportationType.FLIGHT, TUESDAY, 1100, 1200);
+        builder.addEdge(5, ORIGIN, DESTINATION, TransportationType.FLIGHT, EVERY_DAY);
+        RouteGraph graph = builder.build(1L);
+
+        List<ConnectionScan.Journey> journeys = search(graph, 0, 30);
+
+        assertEquals(1, journeys.size());
+        assertEquals(new ConnectionScan.Journey(graph.edgeOf(1), graph.edgeOf(2), graph.edgeOf(3), 1200, 1450),
+                journeys.get(0));
+    }
+
+    @Test
+    void shouldNotReturnRoutesWithoutFlightOrBackThroughOrigin() {
+        RouteGraphBuilder builder = builder();
+        builder.addEdge(1, ORIGIN, DESTINATION, TransportationType.BUS, EVERY_DAY, 600, 700);
+        builder.addEdge(2, ORIGIN, HUB, TransportationType.FLIGHT, EVERY_DAY, 600, 700);
+        builder.addEdge(3, HUB, ORIGIN, TransportationType.BUS, EVERY_DAY, 800, 900);
+        builder.addEdge(4, ORIGIN, DESTINATION, TransportationType.FLIGHT, SUNDAY, 950, 999);
+        RouteGraph graph = builder.build(1L);
+
+        assertTrue(search(graph, 0, 0).isEmpty());
+    }
+
+    private static List<ConnectionScan.Journey> search(RouteGraph graph, int departAfter, int minConnection) {
+        return ConnectionScan.search(graph, graph.timetable(DayOfWeek.MONDAY), ORIGIN, DESTINATION, departAfter,
+                node -> minConnection, new SearchStats());
+    }
+
+    private static RouteGraphBuilder builder() {
+        return RouteGraphFixtures.withLocations(STATION + 1);
+    }
+}
@@ -0,0 +1,103 @@
+package com.ttech.graph;
+
+import com.ttech.model.Transportation.TransportationType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.ttech.graph.RouteGraphFixtures.EVERY_DAY;
+import static com.ttech.graph.RouteGraphFixtures.randomDays;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelRouteFinderTest {
+
+    private static final int ORIGIN = 0;
+    private static final int DESTINATION = 1;
+    private static final int TRANSFERS = 24;
+    private static final int AIRPORTS = 300;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void shouldEmitSameRoutesInSameOrderAsSequentialSearch() {
+        RouteGraph graph = hubGraph();
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            RouteGraph.DayView day = graph.onDay(dayOfWeek);
+            assertTrue(ParallelRouteFinder.estimateFanOut(graph, day, ORIGIN) > ParallelRouteFinder.MIN_TASK_WORK);
+
+            List<String> sequential = new ArrayList<>();
+            RouteFinder.findRoutes(graph, day, ORIGIN, DESTINATION, collect(sequential));
+            List<String> parallel = new ArrayList<>();
+            ParallelRouteFinder.findRoutes(graph, day, ORIGIN, DESTINATION, collect(parallel), new SearchStats(),
+                    pool);
+
+            assertTrue(sequential.size() > 1_000);
+            assertEquals(sequential, parallel);
+        }
+    }
+
+    @Test
+    void shouldRankSameRoutesAsSequentialSearch() {
+        RouteGraph graph = hubGraph();
+        RouteGraph.DayView day = graph.onDay(DayOfWeek.WEDNESDAY);
+        int[] legCosts = {5, 1, 3, 2};
+        for (int limit : new int[]{1, 10, 500, Integer.MAX_VALUE}) {
+            List<String> sequential = new ArrayList<>();
+            RouteFinder.findBestRoutes(graph, day, ORIGIN, DESTINATION, legCosts, limit, collect(sequential));
+            List<String> parallel = new ArrayList<>();
+            ParallelRouteFinder.findBestRoutes(graph, day, ORIGIN, DESTINATION, legCosts, limit, collect(parallel),
+                    new SearchStats(), pool);
+
+            assertEquals(sequential, parallel, "limit " + limit);
+        }
+    }
+
+    private static RouteFinder.RouteConsumer collect(List<String> routes) {
+        return (groundBefore, flight, groundAfter) -> routes.add(groundBefore + "-" + flight + "-" + groundAfter);
+    }
+
+    // An origin with ground legs to busy transfer points, each flying to more airports than one slice holds
+    private static RouteGraph hubGraph() {
+        Random random = new Random(11L);
+        int nodes = 2 + TRANSFERS + AIRPORTS;
+        RouteGraphBuilder builder = RouteGraphFixtures.withLocations(nodes);
+        long id = 0;
+        for (int transfer = 2; transfer < 2 + TRANSFERS; transfer++) {
+            builder.addEdge(++id, ORIGIN, transfer, TransportationType.BUS, EVERY_DAY);
+        }
+        for (int i = 0; i < 40; i++) {
+            builder.addEdge(++id, ORIGIN, 2 + TRANSFERS + random.nextInt(AIRPORTS), TransportationType.UBER,
+                    randomDays(random));
+            builder.addEdge(++id, ORIGIN, 2 + TRANSFERS + random.nextInt(AIRPORTS), TransportationType.FLIGHT,
+                    randomDays(random));
+        }
+        for (int transfer = 2; transfer < 2 + TRANSFERS; transfer++) {
+            for (int i = 0; i < 2 * ParallelRouteFinder.SLICE + 200; i++) {
+                TransportationType type = random.nextInt(4) == 0 ? TransportationType.SUBWAY
+                        : TransportationType.FLIGHT;
+                builder.addEdge(++id, transfer, random.nextInt(nodes), type, randomDays(random));
+            }
+        }
+        for (int airport = 2 + TRANSFERS; airport < nodes; airport++) {
+            TransportationType[] ground = {TransportationType.BUS, TransportationType.SUBWAY, TransportationType.UBER};
+            for (int i = random.nextInt(3); i > 0; i--) {
+                builder.addEdge(++id, airport, DESTINATION, ground[random.nextInt(ground.length)], randomDays(random));
+            }
+            if (random.nextInt(10) == 0) {
+                builder.addEdge(++id, airport, DESTINATION, TransportationType.FLIGHT, randomDays(random));
+            }
+        }
+        return builder.build(1L);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ttech.graph;
+
+import com.ttech.model.Transportation.TransportationType;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.util.Random;
+
+import static com.ttech.graph.RouteGraphFixtures.EVERY_DAY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReachabilityTest {
+
+    private static final int NODES = 30;
+    private static final int EDGES = 400;
+
+    @Test
+    void shouldCountSameRoutesAsSearchingEachDestination() {
+        RouteGraph graph = randomGraph();
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            RouteGraph.DayView day = graph.onDay(dayOfWeek);
+            for (int origin = 0; origin < NODES; origin++) {
+                Reachability reachability = Reachability.from(graph, day, origin, new SearchStats());
+                for (int destination = 0; destination < NODES; destination++) {
+                    long[] routes = {0};
+                    int[] minLegs = {0};
+                    RouteFinder.findRoutes(graph, day, origin, destination, (groundBefore, flight, groundAfter) -> {
+                        int legs = 1 + (groundBefore != RouteFinder.NO_LEG ? 1 : 0)
+                                + (groundAfter != RouteFinder.NO_LEG ? 1 : 0);
+                        routes[0]++;
+                        minLegs[0] = minLegs[0] == 0 ? legs : Math.min(minLegs[0], legs);
+                    });
+
+                    String pair = dayOfWeek + " " + origin + " -> " + destination;
+                    assertEquals(routes[0], reachability.routeCount(destination), pair);
+                    assertEquals(minLegs[0], reachability.minLegs(destination), pair);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldNotCountRoutesReturningToTheirTransferPoint() {
+        RouteGraphBuilder builder = RouteGraphFixtures.withLocations(3);
+        builder.addEdge(1, 0, 1, TransportationType.BUS, EVERY_DAY);
+        builder.addEdge(2, 1, 2, TransportationType.FLIGHT, EVERY_DAY);
+        builder.addEdge(3, 2, 1, TransportationType.UBER, EVERY_DAY);
+        RouteGraph graph = builder.build(1L);
+
+        Reachability reachability = Reachability.from(graph, graph.onDay(DayOfWeek.MONDAY), 0, new SearchStats());
+
+        assertEquals(0L, reachability.routeCount(1));
+        assertEquals(0, reachability.minLegs(1));
+        assertEquals(1L, reachability.routeCount(2));
+        assertEquals(2, reachability.minLegs(2));
+    }
+
+    private static RouteGraph randomGraph() {
+        return RouteGraphFixtures.randomGraph(new Random(7L), NODES, EDGES).build(1L);
+    }
+}
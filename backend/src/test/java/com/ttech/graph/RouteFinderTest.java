@@ -0,0 +1,82 @@
+package com.ttech.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteFinderTest {
+
+    private static final int NODES = 12;
+    private static final int EDGES = 180;
+    // Leg costs by type ordinal (FLIGHT, BUS, SUBWAY, UBER): no sort, fewest legs, configured cost, and
+    // costs where flights tie with buses and subways with ubers
+    private static final int[][] LEG_COSTS = {{0, 0, 0, 0}, {1, 1, 1, 1}, {10, 2, 1, 4}, {2, 2, 1, 1}};
+    private static final int[] LIMITS = {1, 2, 3, 5, 8, Integer.MAX_VALUE};
+
+    @Test
+    void shouldReturnSameRoutesAsSortingAllRoutesAndTruncating() {
+        long rankedSearches = 0;
+        for (long seed = 1; seed <= 5; seed++) {
+            RouteGraph graph = RouteGraphFixtures.randomGraph(new Random(seed), NODES, EDGES).build(1L);
+            for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+                RouteGraph.DayView day = graph.onDay(dayOfWeek);
+                for (int origin = 0; origin < NODES; origin++) {
+                    for (int destination = 0; destination < NODES; destination++) {
+                        rankedSearches += assertTopK(graph, day, origin, destination);
+                    }
+                }
+            }
+        }
+        assertTrue(rankedSearches > 1_000);
+    }
+
+    // Returns how many of the searches had more routes than their limit, i.e. had to rank
+    private static int assertTopK(RouteGraph graph, RouteGraph.DayView day, int origin, int destination) {
+        List<int[]> all = new ArrayList<>();
+        RouteFinder.findRoutes(graph, day, origin, destination,
+                (groundBefore, flight, groundAfter) -> all.add(new int[]{groundBefore, flight, groundAfter}));
+
+        int ranked = 0;
+        for (int[] legCosts : LEG_COSTS) {
+            // A stable sort keeps routes of equal cost in search order
+            List<int[]> sorted = new ArrayList<>(all);
+            sorted.sort(Comparator.comparingLong(route -> cost(graph, route, legCosts)));
+            for (int limit : LIMITS) {
+                List<String> expected = sorted.subList(0, Math.min(limit, sorted.size())).stream()
+                        .map(RouteFinderTest::format)
+                        .toList();
+                List<String> best = new ArrayList<>();
+                RouteFinder.findBestRoutes(graph, day, origin, destination, legCosts, limit, (groundBefore, flight,
+                        groundAfter) -> best.add(format(new int[]{groundBefore, flight, groundAfter})));
+
+                assertEquals(expected, best, origin + " -> " + destination + " costs " + legCosts[0] + ","
+                        + legCosts[1] + "," + legCosts[2] + "," + legCosts[3] + " limit " + limit);
+                if (all.size() > limit) {
+                    ranked++;
+                }
+            }
+        }
+        return ranked;
+    }
+
+    private static long cost(RouteGraph graph, int[] route, int[] legCosts) {
+        long cost = 0;
+        for (int edge : route) {
+            if (edge != RouteFinder.NO_LEG) {
+                cost += legCosts[graph.type(edge).ordinal()];
+            }
+        }
+        return cost;
+    }
+
+    private static String format(int[] route) {
+        return route[0] + "-" + route[1] + "-" + route[2];
+    }
+}
@@ -0,0 +1,58 @@
+package com.ttech.graph;
+
+import com.ttech.model.Location;
+import com.ttech.model.Transportation.TransportationType;
+
+import java.util.Random;
+
+/**
+ * Locations and networks shared by the route graph tests. Node {@code n} is the location with id {@code n}
+ * and code {@code "L" + n}, so node ids and location ids coincide.
+ */
+final class RouteGraphFixtures {
+
+    static final int EVERY_DAY = 0x7F;
+
+    private RouteGraphFixtures() {
+    }
+
+    static Location location(int node) {
+        Location location = new Location();
+        location.setId((long) node);
+        location.setLocationCode("L" + node);
+        location.setName("Location " + node);
+        location.setCity("City " + node);
+        location.setCountry("Turkey");
+        return location;
+    }
+
+    /**
+     * A builder holding nodes {@code 0} to {@code nodes - 1} and no edges.
+     */
+    static RouteGraphBuilder withLocations(int nodes) {
+        RouteGraphBuilder builder = new RouteGraphBuilder();
+        for (int node = 0; node < nodes; node++) {
+            builder.addLocation(location(node));
+        }
+        return builder;
+    }
+
+    /**
+     * Nodes {@code 0} to {@code nodes - 1} and unscheduled edges with ids {@code 1} to {@code edges} between
+     * random nodes, of random types on random days. Few nodes and many edges make routes share transfer
+     * points, run in parallel and loop back.
+     */
+    static RouteGraphBuilder randomGraph(Random random, int nodes, int edges) {
+        RouteGraphBuilder builder = withLocations(nodes);
+        TransportationType[] types = TransportationType.values();
+        for (int id = 1; id <= edges; id++) {
+            builder.addEdge(id, random.nextInt(nodes), random.nextInt(nodes), types[random.nextInt(types.length)],
+                    randomDays(random));
+        }
+        return builder;
+    }
+
+    static int randomDays(Random random) {
+        return 1 + random.nextInt(EVERY_DAY);
+    }
+}
@@ -0,0 +1,133 @@
+package com.ttech.graph;
+
+import com.ttech.config.RouteSearchProperties;
+import com.ttech.model.Transportation.TransportationType;
+import com.ttech.repository.LocationRepository;
+import com.ttech.repository.TransportationEdge;
+import com.ttech.repository.TransportationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.ttech.graph.RouteGraphFixtures.EVERY_DAY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RouteGraphProviderTest {
+
+    @Mock
+    private LocationRepository locationRepository;
+
+    @Mock
+    private TransportationRepository transportationRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    Path directory;
+
+    private Path path;
+    private RouteSearchProperties properties;
+    private RouteGraphProvider provider;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new RouteSearchProperties();
+        path = directory.resolve("route-graph.snapshot");
+        properties.getSnapshot().setPath(path);
+        properties.getSnapshot().setRewriteDelay(Duration.ZERO);
+        provider = new RouteGraphProvider(locationRepository, transportationRepository, properties, eventPublisher);
+
+        RouteGraph saved = RouteGraphFixtures.withLocations(3)
+                .addEdge(1, 0, 1, TransportationType.FLIGHT, EVERY_DAY)
+                .build(1L);
+        RouteGraphSnapshot.write(saved, 5L, path);
+    }
+
+    @Test
+    void shouldStartFromSnapshotWhileRevisionHolds() {
+        when(transportationRepository.findNetworkRevision()).thenReturn(5L);
+
+        RouteGraph graph = provider.current();
+
+        assertEquals(3, graph.nodeCount());
+        assertEquals(1, graph.edgeCount());
+        verify(locationRepository, never()).findAll();
+        verify(transportationRepository, never()).findAllEdges();
+    }
+
+    @Test
+    void shouldLoadFromDatabaseWhenRevisionMoved() throws Exception {
+        when(transportationRepository.findNetworkRevision()).thenReturn(6L);
+        when(locationRepository.findAll()).thenReturn(List.of(RouteGraphFixtures.location(0),
+                RouteGraphFixtures.location(1), RouteGraphFixtures.location(2)));
+        when(transportationRepository.findAllEdges()).thenReturn(List.of(
+                new TransportationEdge(1L, 0L, 1L, TransportationType.FLIGHT, EVERY_DAY, null, null),
+                new TransportationEdge(2L, 1L, 2L, TransportationType.BUS, EVERY_DAY, null, null)));
+
+        RouteGraph graph = provider.current();
+
+        assertEquals(2, graph.edgeCount());
+        assertNull(RouteGraphSnapshot.read(path, 5L, 1L));
+        assertNotNull(RouteGraphSnapshot.read(path, 6L, 1L));
+    }
+
+    @Test
+    void shouldRestartFromSnapshotAfterIncrementalUpdate() throws Exception {
+        // Loaded at revision 5, then one committed change raised it to 6
+        when(transportationRepository.findNetworkRevision()).thenReturn(5L, 6L);
+        provider.current();
+        RouteGraphUpdater updater = new RouteGraphUpdater(provider, new SimpleMeterRegistry(), properties);
+        try {
+            updater.onChange(new RouteGraphChange.TransportationSaved(2L, 1L, 2L, TransportationType.BUS,
+                    EVERY_DAY, RouteGraph.NO_TIME, RouteGraph.NO_TIME));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (RouteGraphSnapshot.read(path, 6L, 1L) == null) {
+                if (System.nanoTime() > deadline) {
+                    throw new AssertionError("Snapshot was not rewritten at revision 6");
+                }
+                Thread.sleep(10);
+            }
+        } finally {
+            updater.shutdown();
+        }
+
+        RouteGraph restarted = new RouteGraphProvider(locationRepository, transportationRepository, properties,
+                eventPublisher).current();
+
+        assertEquals(3, restarted.nodeCount());
+        assertEquals(2, restarted.edgeCount());
+        verify(locationRepository, never()).findAll();
+        verify(transportationRepository, never()).findAllEdges();
+    }
+
+    @Test
+    void shouldReportVersionWithoutLoadingGraph() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new RouteGraphUpdater(provider, registry, properties).registerMetrics();
+
+        assertTrue(Double.isNaN(registry.get("route.graph.version").gauge().value()));
+        verify(transportationRepository, never()).findNetworkRevision();
+
+        when(transportationRepository.findNetworkRevision()).thenReturn(5L);
+        provider.current();
+        assertEquals(1.0, registry.get("route.graph.version").gauge().value());
+    }
+}
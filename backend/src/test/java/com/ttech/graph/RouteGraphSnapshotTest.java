@@ -0,0 +1,88 @@
+package com.ttech.graph;
+
+import com.ttech.model.Location;
+import com.ttech.model.Transportation.TransportationType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RouteGraphSnapshotTest {
+
+    private static final int NODES = 20;
+    private static final int EDGES = 200;
+    private static final int SCHEDULED = 50;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadBackSameGraph() throws Exception {
+        RouteGraph graph = randomGraph();
+        Path path = directory.resolve("route-graph.snapshot");
+
+        RouteGraphSnapshot.write(graph, 42L, path);
+        RouteGraph read = RouteGraphSnapshot.read(path, 42L, 7L);
+
+        assertEquals(7L, read.getVersion());
+        assertEquals(graph.nodeCount(), read.nodeCount());
+        assertEquals(graph.edgeCount(), read.edgeCount());
+        for (int node = 0; node < NODES; node++) {
+            assertEquals(graph.location(node), read.location(node));
+            assertEquals(node, read.nodeOf(graph.location(node).getLocationCode()));
+            assertEquals(graph.firstInEdge(node), read.firstInEdge(node));
+            for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+                assertEquals(graph.onDay(dayOfWeek).endEdge(node), read.onDay(dayOfWeek).endEdge(node));
+                assertEquals(graph.onDay(dayOfWeek).endInEdge(node), read.onDay(dayOfWeek).endInEdge(node));
+            }
+        }
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            assertEquals(graph.toTransportation(edge), read.toTransportation(edge));
+            assertEquals(graph.inEdge(edge), read.inEdge(edge));
+            assertEquals(edge, read.edgeOf(graph.transportationId(edge)));
+        }
+    }
+
+    @Test
+    void shouldIgnoreSnapshotOfAnotherRevision() throws Exception {
+        Path path = directory.resolve("route-graph.snapshot");
+        RouteGraphSnapshot.write(randomGraph(), 42L, path);
+
+        assertNull(RouteGraphSnapshot.read(path, 43L, 1L));
+        assertNull(RouteGraphSnapshot.read(directory.resolve("missing.snapshot"), 42L, 1L));
+    }
+
+    @Test
+    void shouldIgnoreCorruptedSnapshot() throws Exception {
+        Path path = directory.resolve("route-graph.snapshot");
+        RouteGraphSnapshot.write(randomGraph(), 42L, path);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        assertNull(RouteGraphSnapshot.read(path, 42L, 1L));
+    }
+
+    // Random unscheduled legs plus scheduled flights, and locations with and without a minimum connection
+    private static RouteGraph randomGraph() {
+        Random random = new Random(11L);
+        RouteGraphBuilder builder = RouteGraphFixtures.randomGraph(random, NODES, EDGES);
+        for (int node = 0; node < NODES; node += 2) {
+            Location location = RouteGraphFixtures.location(node);
+            location.setCountry("Türkiye");
+            location.setMinConnectionMinutes(15 * node);
+            builder.addLocation(location);
+        }
+        for (int id = EDGES + 1; id <= EDGES + SCHEDULED; id++) {
+            builder.addEdge(id, random.nextInt(NODES), random.nextInt(NODES), TransportationType.FLIGHT,
+                    RouteGraphFixtures.randomDays(random), random.nextInt(24 * 60), random.nextInt(24 * 60));
+        }
+        return builder.build(1L);
+    }
+}
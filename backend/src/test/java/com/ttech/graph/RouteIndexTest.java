@@ -0,0 +1,102 @@
+package com.ttech.graph;
+
+import com.ttech.model.Transportation.TransportationType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.ttech.graph.RouteGraphFixtures.randomDays;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RouteIndexTest {
+
+    private static final int NODES = 25;
+    private static final int EDGES = 250;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void shouldHoldSameRoutesInSameOrderAsSearch() {
+        RouteGraph graph = randomGraph(new Random(3L)).build(1L);
+
+        assertSameRoutes(graph, RouteIndex.build(graph, pool, Long.MAX_VALUE));
+    }
+
+    @Test
+    void shouldMatchSearchAfterIncrementalUpdates() {
+        Random random = new Random(5L);
+        RouteGraph graph = randomGraph(random).build(1L);
+        RouteIndex index = RouteIndex.build(graph, pool, Long.MAX_VALUE);
+        TransportationType[] types = TransportationType.values();
+
+        for (int step = 0; step < 5; step++) {
+            List<RouteGraphChange> changes = new ArrayList<>();
+            changes.add(new RouteGraphChange.TransportationDeleted(1 + random.nextInt(EDGES)));
+            changes.add(new RouteGraphChange.TransportationSaved(1 + random.nextInt(EDGES + 20), random.nextInt(NODES),
+                    random.nextInt(NODES), types[random.nextInt(types.length)], randomDays(random),
+                    RouteGraph.NO_TIME, RouteGraph.NO_TIME));
+            RouteGraphBuilder builder = RouteGraphBuilder.from(graph);
+            changes.forEach(builder::apply);
+            RouteGraph updated = builder.build(graph.getVersion() + 1);
+
+            AffectedRoutes affected = AffectedRoutes.of(new RouteGraphUpdatedEvent(graph, updated, changes));
+            index = index.update(updated,
+                    origin -> affected.affectsOrigin(updated.location(origin).getLocationCode()), pool, Long.MAX_VALUE);
+
+            assertSameRoutes(updated, index);
+            assertEquals(RouteIndex.build(updated, pool, Long.MAX_VALUE).getRouteCount(), index.getRouteCount());
+            graph = updated;
+        }
+    }
+
+    @Test
+    void shouldRefuseToGrowPastMaxRoutes() {
+        RouteGraph graph = randomGraph(new Random(3L)).build(1L);
+
+        assertThrows(RouteIndex.TooLargeException.class, () -> RouteIndex.build(graph, pool, 10));
+    }
+
+    private static void assertSameRoutes(RouteGraph graph, RouteIndex index) {
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            for (int origin = 0; origin < NODES; origin++) {
+                for (int destination = 0; destination < NODES; destination++) {
+                    List<String> searched = new ArrayList<>();
+                    RouteFinder.findRoutes(graph, graph.onDay(dayOfWeek), origin, destination, collect(graph, searched));
+                    List<String> indexed = new ArrayList<>();
+                    index.forEachRoute(graph, dayOfWeek, origin, destination, Integer.MAX_VALUE,
+                            collect(graph, indexed), new SearchStats());
+                    assertEquals(searched, indexed, dayOfWeek + " " + origin + " -> " + destination);
+
+                    List<String> limited = new ArrayList<>();
+                    index.forEachRoute(graph, dayOfWeek, origin, destination, 2, collect(graph, limited),
+                            new SearchStats());
+                    assertEquals(searched.subList(0, Math.min(2, searched.size())), limited);
+                }
+            }
+        }
+    }
+
+    private static RouteFinder.RouteConsumer collect(RouteGraph graph, List<String> routes) {
+        return (groundBefore, flight, groundAfter) -> routes.add(id(graph, groundBefore) + "-"
+                + id(graph, flight) + "-" + id(graph, groundAfter));
+    }
+
+    private static long id(RouteGraph graph, int edge) {
+        return edge == RouteFinder.NO_LEG ? RouteFinder.NO_LEG : graph.transportationId(edge);
+    }
+
+    private static RouteGraphBuilder randomGraph(Random random) {
+        return RouteGraphFixtures.randomGraph(random, NODES, EDGES);
+    }
+}
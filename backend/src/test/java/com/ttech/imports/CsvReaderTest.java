@@ -0,0 +1,37 @@
+package com.ttech.imports;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CsvReaderTest {
+
+    @Test
+    void shouldReadQuotedFieldsAndSkipByteOrderMark() throws IOException {
+        CsvReader reader = reader("\uFEFFname,city\r\n\"Foo, Bar\",\"He said \"\"hi\"\"\"\r\n\"multi\nline\",x\n");
+
+        assertEquals(List.of("name", "city"), reader.readRecord());
+        assertEquals(List.of("Foo, Bar", "He said \"hi\""), reader.readRecord());
+        assertEquals(List.of("multi\nline", "x"), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void shouldReturnLastRecordWithoutTrailingNewline() throws IOException {
+        CsvReader reader = reader("a,b\nc,");
+
+        assertEquals(List.of("a", "b"), reader.readRecord());
+        assertEquals(List.of("c", ""), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    private CsvReader reader(String content) {
+        return new CsvReader(new BufferedReader(new StringReader(content)));
+    }
+}
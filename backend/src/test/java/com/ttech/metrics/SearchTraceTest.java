@@ -0,0 +1,45 @@
+package com.ttech.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchTraceTest {
+
+    @Test
+    void shouldTimeEveryRoute_WhenTimed() {
+        SearchTrace trace = new SearchTrace(true);
+        for (int route = 0; route < 10; route++) {
+            assertTrue(trace.timesNextRoute());
+            trace.filtered(100, route % 2 == 0);
+        }
+        trace.searched(5_000);
+
+        assertEquals(1_000L, trace.getFilterNanos());
+        assertEquals(4_000L, trace.getTraverseNanos());
+        assertEquals(5L, trace.getRoutesFound());
+        assertEquals(5L, trace.getRoutesRejected());
+    }
+
+    @Test
+    void shouldExtrapolateSampledRoutes_WhenNotTimed() {
+        SearchTrace trace = new SearchTrace();
+        int timed = 0;
+        for (int route = 0; route < 4 * SearchTrace.SAMPLE_INTERVAL; route++) {
+            if (trace.timesNextRoute()) {
+                timed++;
+                trace.filtered(100, true);
+                trace.emitted(50);
+            } else {
+                trace.filtered(true);
+            }
+        }
+        trace.searched(100_000);
+
+        assertEquals(4, timed);
+        assertEquals(100L * 4 * SearchTrace.SAMPLE_INTERVAL, trace.getFilterNanos());
+        assertEquals(100_000 - 150L * 4 * SearchTrace.SAMPLE_INTERVAL, trace.getTraverseNanos());
+        assertEquals(4L * SearchTrace.SAMPLE_INTERVAL, trace.getRoutesFound());
+    }
+}
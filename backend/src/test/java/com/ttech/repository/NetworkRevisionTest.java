@@ -0,0 +1,96 @@
+package com.ttech.repository;
+
+import com.ttech.model.Location;
+import com.ttech.model.Transportation;
+import com.ttech.model.Transportation.TransportationType;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the triggers of V4: every committed transaction that writes locations or transportations raises the
+ * network revision by exactly one, however many statements it runs. Each write commits on its own here.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = DatabaseProvider.ZONKY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NetworkRevisionTest {
+
+    @Autowired
+    private TransportationRepository transportationRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE transportation_import_keys, transportations, locations RESTART IDENTITY");
+    }
+
+    @Test
+    void shouldRaiseRevisionOncePerTransaction() {
+        long revision = transportationRepository.findNetworkRevision();
+
+        Transportation transportation = transactionTemplate.execute(status -> {
+            Location origin = locationRepository.save(location("IST"));
+            Location destination = locationRepository.save(location("SAW"));
+            transportationRepository.save(transportation(origin, destination, TransportationType.BUS));
+            return transportationRepository.save(transportation(origin, destination, TransportationType.FLIGHT));
+        });
+        assertEquals(revision + 1, transportationRepository.findNetworkRevision());
+
+        transportation.setOperatingDays(List.of(1, 2));
+        transportationRepository.save(transportation);
+        assertEquals(revision + 2, transportationRepository.findNetworkRevision());
+
+        transportationRepository.deleteById(transportation.getId());
+        assertEquals(revision + 3, transportationRepository.findNetworkRevision());
+    }
+
+    @Test
+    void shouldKeepRevisionOnRollback() {
+        long revision = transportationRepository.findNetworkRevision();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            locationRepository.save(location("ESB"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(revision, transportationRepository.findNetworkRevision());
+    }
+
+    private static Transportation transportation(Location origin, Location destination, TransportationType type) {
+        Transportation transportation = new Transportation();
+        transportation.setOriginLocation(origin);
+        transportation.setDestinationLocation(destination);
+        transportation.setTransportationType(type);
+        transportation.setOperatingDays(List.of(1, 3, 5));
+        return transportation;
+    }
+
+    private static Location location(String code) {
+        Location location = new Location();
+        location.setLocationCode(code);
+        location.setName(code + " Airport");
+        location.setCity(code);
+        location.setCountry("Turkey");
+        return location;
+    }
+}
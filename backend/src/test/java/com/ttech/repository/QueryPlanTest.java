@@ -0,0 +1,74 @@
+package com.ttech.repository;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the migrated schema serves the hot query shapes from indexes. Sequential scans are
+ * disabled, so a plan without the expected index means the index cannot serve that predicate at all.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = DatabaseProvider.ZONKY)
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO locations (name, country, city, location_code)"
+                + " SELECT 'Location ' || i, 'Country', 'City ' || (i % 100), 'L' || i"
+                + " FROM generate_series(1, 2000) AS i");
+        jdbcTemplate.update("INSERT INTO transportations (origin_location_id, destination_location_id,"
+                + " transportation_type, operating_days, operating_days_mask)"
+                + " SELECT l.first + i % 2000, l.first + (i * 7) % 2000,"
+                + " (ARRAY['FLIGHT', 'BUS', 'SUBWAY', 'UBER'])[1 + i % 4], ARRAY[1 + i % 7], 1 << (i % 7)"
+                + " FROM generate_series(1, 20000) AS i, (SELECT min(id) AS first FROM locations) AS l");
+        // Rows inserted just now sit in the GIN pending lists, which autovacuum would have merged by now. The
+        // planner charges a scan of them, enough to prefer a full btree scan over a trigram index on this table
+        jdbcTemplate.queryForList("SELECT gin_clean_pending_list(i.oid) FROM pg_class i"
+                + " JOIN pg_am a ON a.oid = i.relam WHERE a.amname = 'gin' AND i.relkind = 'i'"
+                + " AND i.relnamespace = 'public'::regnamespace", Long.class);
+        jdbcTemplate.execute("ANALYZE locations");
+        jdbcTemplate.execute("ANALYZE transportations");
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void shouldFilterByOriginAndTypeWithCompositeIndex() {
+        assertUsesIndex("idx_transportations_origin_type", "SELECT id FROM transportations"
+                + " WHERE origin_location_id = (SELECT min(id) + 5 FROM locations) AND transportation_type = 'BUS'");
+    }
+
+    @Test
+    void shouldFilterByOperatingDayWithGinIndex() {
+        assertUsesIndex("idx_transportations_operating_days",
+                "SELECT id FROM transportations WHERE (operating_days @> array[3])");
+    }
+
+    @Test
+    void shouldSearchLocationsWithTrigramIndexes() {
+        String plan = plan("SELECT id FROM locations"
+                + " WHERE lower(name) LIKE '%tion 12%' OR lower(location_code) LIKE '%l12%'");
+
+        assertTrue(plan.contains("idx_locations_name_trgm"), plan);
+        assertTrue(plan.contains("idx_locations_location_code_trgm"), plan);
+        assertUsesIndex("idx_locations_city_trgm", "SELECT id FROM locations WHERE lower(city) LIKE '%ity 42%'");
+    }
+
+    private void assertUsesIndex(String index, String query) {
+        String plan = plan(query);
+        assertTrue(plan.contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+    }
+
+    private String plan(String query) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query, String.class));
+    }
+}
@@ -0,0 +1,134 @@
+package com.ttech.repository;
+
+import com.ttech.cache.LocationCache;
+import com.ttech.dto.requests.TotalCount;
+import com.ttech.dto.requests.TransportationFilterRequest;
+import com.ttech.model.Location;
+import com.ttech.model.Transportation;
+import com.ttech.model.Transportation.TransportationType;
+import com.ttech.service.TransportationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Guards the fetch plans of transportation queries: each call must stay within its statement budget,
+ * including reading the origin and destination of every result.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureEmbeddedDatabase(provider = DatabaseProvider.ZONKY)
+@Import({TransportationService.class, SimpleMeterRegistry.class})
+class TransportationFetchPlanTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransportationRepository transportationRepository;
+
+    @Autowired
+    private TransportationService transportationService;
+
+    // The listings below are unfiltered, so no location lookups are needed
+    @MockBean
+    private LocationCache locationCache;
+
+    private Statistics statistics;
+    private Long firstId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        List<Location> locations = List.of(location("IST"), location("SAW"), location("ESB"), location("ADB"));
+        locations.forEach(entityManager::persist);
+        for (int i = 0; i < 12; i++) {
+            Transportation transportation = new Transportation();
+            transportation.setOriginLocation(locations.get(i % 4));
+            transportation.setDestinationLocation(locations.get((i + 1) % 4));
+            transportation.setTransportationType(TransportationType.values()[i % 4]);
+            transportation.setOperatingDays(List.of(1, 3, 5));
+            entityManager.persist(transportation);
+            if (firstId == null) {
+                firstId = transportation.getId();
+            }
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void shouldListPageWithOneSelectAndOneCount() {
+        int legs = withinBudget(2, () -> touchLocations(transportationService.getAllTransportations(
+                new TransportationFilterRequest(), PageRequest.of(0, 5, Sort.by("id"))).getContent()));
+
+        assertEquals(5, legs);
+    }
+
+    @Test
+    void shouldScrollPageWithOneSelect() {
+        int legs = withinBudget(1, () -> touchLocations(transportationService.scrollTransportations(
+                new TransportationFilterRequest(), Sort.Direction.ASC, 5, null, TotalCount.none).getContent()));
+
+        assertEquals(5, legs);
+    }
+
+    @Test
+    void shouldFindByIdWithOneSelect() {
+        int legs = withinBudget(1,
+                () -> touchLocations(List.of(transportationRepository.findById(firstId).orElseThrow())));
+
+        assertEquals(1, legs);
+    }
+
+    @Test
+    void shouldReadGraphEdgesWithOneSelect() {
+        List<TransportationEdge> edges = withinBudget(1, transportationRepository::findAllEdges);
+
+        assertEquals(12, edges.size());
+    }
+
+    private <T> T withinBudget(int statements, Supplier<T> call) {
+        entityManager.clear();
+        statistics.clear();
+        T result = call.get();
+        long executed = statistics.getPrepareStatementCount();
+        if (executed > statements) {
+            throw new AssertionError("Expected at most " + statements + " statements but " + executed + " ran");
+        }
+        return result;
+    }
+
+    private static int touchLocations(List<Transportation> transportations) {
+        for (Transportation transportation : transportations) {
+            transportation.getOriginLocation().getName();
+            transportation.getDestinationLocation().getName();
+        }
+        return transportations.size();
+    }
+
+    private static Location location(String code) {
+        Location location = new Location();
+        location.setLocationCode(code);
+        location.setName(code + " Airport");
+        location.setCity(code);
+        location.setCountry("Turkey");
+        return location;
+    }
+}
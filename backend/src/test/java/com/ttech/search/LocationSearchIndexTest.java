@@ -0,0 +1,44 @@
+package com.ttech.search;
+
+import com.ttech.model.Location;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocationSearchIndexTest {
+
+    private final LocationSearchIndex index = LocationSearchIndex.build(List.of(
+            location(1L, "ISL", "Atatürk Airport", "Istanbul"),
+            location(2L, "SAW", "Sabiha Gökçen Airport", "Istanbul"),
+            location(3L, "IST", "İstanbul Airport", "Istanbul"),
+            location(4L, "ESB", "Esenboğa Airport", "Ankara")));
+
+    @Test
+    void shouldRankExactCodeBeforePrefixesAndWords() {
+        assertEquals(List.of("IST", "ISL", "SAW"), codes(index.search("ist", 10)));
+    }
+
+    @Test
+    void shouldMatchInsideWordsIgnoringDiacritics() {
+        assertEquals(List.of("SAW"), codes(index.search("gokcen", 10)));
+        assertEquals(List.of("ESB"), codes(index.search("boga", 10)));
+        assertTrue(index.search("xyz", 10).isEmpty());
+    }
+
+    private static List<String> codes(List<Location> locations) {
+        return locations.stream().map(Location::getLocationCode).toList();
+    }
+
+    private static Location location(Long id, String code, String name, String city) {
+        Location location = new Location();
+        location.setId(id);
+        location.setLocationCode(code);
+        location.setName(name);
+        location.setCity(city);
+        location.setCountry("Turkey");
+        return location;
+    }
+}
@@ -0,0 +1,139 @@
+package com.ttech.service;
+
+import com.ttech.cache.LocationCache;
+import com.ttech.dto.requests.TotalCount;
+import com.ttech.dto.responses.CursorPage;
+import com.ttech.model.Location;
+import com.ttech.model.Location.SortBy;
+import com.ttech.search.LocationAutocomplete;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keyset scrolling of locations against the migrated schema: cursors, their validation and the totals.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = DatabaseProvider.ZONKY)
+@Import({LocationService.class, SimpleMeterRegistry.class})
+class LocationScrollTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LocationService locationService;
+
+    @MockBean
+    private LocationCache locationCache;
+
+    @MockBean
+    private LocationAutocomplete locationAutocomplete;
+
+    @BeforeEach
+    void setUp() {
+        // Two locations share a name, so the id has to break the tie across a page boundary
+        entityManager.persist(location("A", "Alpha"));
+        entityManager.persist(location("B", "Bravo"));
+        entityManager.persist(location("C", "Bravo"));
+        entityManager.persist(location("D", "Charlie"));
+        entityManager.persist(location("E", "Delta"));
+        entityManager.flush();
+    }
+
+    @Test
+    void shouldScrollAllLocationsWithCursors() {
+        CursorPage<Location> first = scroll(SortBy.name, null, TotalCount.none);
+        CursorPage<Location> second = scroll(SortBy.name, first.getNextCursor(), TotalCount.none);
+        CursorPage<Location> third = scroll(SortBy.name, second.getNextCursor(), TotalCount.none);
+
+        assertEquals(List.of("A", "B"), codes(first));
+        assertEquals(List.of("C", "D"), codes(second));
+        assertEquals(List.of("E"), codes(third));
+        assertTrue(second.isHasNext());
+        assertFalse(third.isHasNext());
+        assertNull(third.getNextCursor());
+    }
+
+    @Test
+    void shouldRejectTamperedCursor() {
+        String cursor = scroll(SortBy.name, null, TotalCount.none).getNextCursor();
+        String notJson = cursor.substring(0, cursor.length() - 2) + "!!";
+        String textId = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"name\":\"Bravo\",\"id\":\"2\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertBadRequest(() -> scroll(SortBy.name, notJson, TotalCount.none));
+        assertBadRequest(() -> scroll(SortBy.name, textId, TotalCount.none));
+    }
+
+    @Test
+    void shouldRejectCursorOfAnotherSort() {
+        String cursor = scroll(SortBy.name, null, TotalCount.none).getNextCursor();
+
+        assertBadRequest(() -> scroll(SortBy.country, cursor, TotalCount.none));
+        assertBadRequest(() -> scroll(SortBy.id, cursor, TotalCount.none));
+    }
+
+    @Test
+    void shouldReportRequestedTotal() {
+        jdbcTemplate.execute("ANALYZE locations");
+        // Not in the planner statistics until the next analyze
+        entityManager.persist(location("F", "Echo"));
+        entityManager.flush();
+
+        assertNull(scroll(SortBy.name, null, TotalCount.none).getTotalElements());
+        assertEquals(5L, scroll(SortBy.name, null, TotalCount.estimated).getTotalElements());
+        assertEquals(6L, scroll(SortBy.name, null, TotalCount.exact).getTotalElements());
+        assertEquals(2L, locationService.scrollLocations("bravo", SortBy.name, Sort.Direction.ASC, 2, null,
+                TotalCount.estimated).getTotalElements());
+    }
+
+    private CursorPage<Location> scroll(SortBy sortBy, String cursor, TotalCount total) {
+        return locationService.scrollLocations(null, sortBy, Sort.Direction.ASC, 2, cursor, total);
+    }
+
+    private static void assertBadRequest(Runnable call) {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, call::run);
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    private static List<String> codes(CursorPage<Location> page) {
+        List<String> codes = new ArrayList<>();
+        page.getContent().forEach(location -> codes.add(location.getLocationCode()));
+        return codes;
+    }
+
+    private static Location location(String code, String name) {
+        Location location = new Location();
+        location.setLocationCode(code);
+        location.setName(name);
+        location.setCity(name);
+        location.setCountry("Turkey");
+        return location;
+    }
+}
@@ -1,40 +1,70 @@
 package com.ttech.service;
 
+import com.ttech.cache.RouteSearchCache;
+import com.ttech.config.RouteSearchProperties;
 import com.ttech.dto.requests.RouteSearchRequest;
+import com.ttech.dto.requests.RouteSort;
+import com.ttech.graph.RouteGraphBuilder;
+import com.ttech.graph.RouteGraphProvider;
+import com.ttech.graph.RouteIndexProvider;
+import com.ttech.metrics.RouteSearchMetrics;
 import com.ttech.model.Location;
 import com.ttech.model.Transportation;
-import com.ttech.repository.LocationRepository;
-import com.ttech.repository.TransportationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class RouteServiceTest {
 
     @Mock
-    private LocationRepository locationRepository;
+    private RouteGraphProvider routeGraphProvider;
 
     @Mock
-    private TransportationRepository transportationRepository;
+    private RouteIndexProvider routeIndexProvider;
+
+    @Spy
+    private RouteSearchCache routeSearchCache = new RouteSearchCache(new RouteSearchProperties(), new SimpleMeterRegistry());
+
+    @Spy
+    private RouteSearchProperties properties = new RouteSearchProperties();
+
+    @Spy
+    private AsyncTaskExecutor routeSearchExecutor = new SimpleAsyncTaskExecutor();
+
+    @Mock
+    private ForkJoinPool routeSearchForkJoinPool;
+
+    @Spy
+    private RouteSearchMetrics routeSearchMetrics = new RouteSearchMetrics(new SimpleMeterRegistry());
 
     @InjectMocks
     private RouteService routeService;
 
     private Location istanbul, ankara, izmir;
     private final LocalDate fixedDate = LocalDate.of(2024, 5, 13);
+    private final List<Location> locations = new ArrayList<>();
+    private final AtomicLong transportIds = new AtomicLong();
 
     @BeforeEach
     void setUp() {
@@ -50,13 +80,14 @@ class RouteServiceTest {
         l.setName(name);
         l.setCity(name);
         l.setCountry("Turkey");
+        locations.add(l);
         return l;
     }
 
     private Transportation createTransport(Location from, Location to, Transportation.TransportationType type,
             List<Integer> days) {
         Transportation t = new Transportation();
-        t.setId((long) (Math.random() * 1000));
+        t.setId(transportIds.incrementAndGet());
         t.setOriginLocation(from);
         t.setDestinationLocation(to);
         t.setTransportationType(type);
@@ -71,10 +102,7 @@ class RouteServiceTest {
         Transportation flight = createTransport(istanbul, ankara, Transportation.TransportationType.FLIGHT, allDays());
         Transportation bus = createTransport(ankara, izmir, Transportation.TransportationType.BUS, allDays());
 
-        when(locationRepository.findByLocationCode("IST")).thenReturn(istanbul);
-        when(locationRepository.findByLocationCode("IZM")).thenReturn(izmir);
-        when(transportationRepository.findByOriginLocation(istanbul)).thenReturn(List.of(flight));
-        when(transportationRepository.findByOriginLocation(ankara)).thenReturn(List.of(bus));
+        givenNetwork(flight, bus);
 
         List<List<Transportation>> routes = routeService.findValidRoutes(request);
 
@@ -89,10 +117,7 @@ class RouteServiceTest {
         Transportation flight = createTransport(istanbul, ankara, Transportation.TransportationType.FLIGHT, allDays());
         Transportation bus = createTransport(ankara, izmir, Transportation.TransportationType.BUS, allDays());
 
-        when(locationRepository.findByLocationCode("IST")).thenReturn(istanbul);
-        when(locationRepository.findByLocationCode("IZM")).thenReturn(izmir);
-        when(transportationRepository.findByOriginLocation(istanbul)).thenReturn(List.of(flight));
-        when(transportationRepository.findByOriginLocation(ankara)).thenReturn(List.of(bus));
+        givenNetwork(flight, bus);
 
         List<List<Transportation>> routes = routeService.findValidRoutes(request);
 
@@ -103,7 +128,7 @@ class RouteServiceTest {
     void shouldThrowException_WhenOriginLocationInvalid() {
         RouteSearchRequest request = new RouteSearchRequest("INVALID", "IZM", fixedDate);
 
-        when(locationRepository.findByLocationCode("INVALID")).thenReturn(null);
+        givenNetwork();
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
             routeService.findValidRoutes(request);
@@ -118,9 +143,7 @@ class RouteServiceTest {
     void shouldReturnEmpty_WhenNoTransportsAvailable() {
         RouteSearchRequest request = new RouteSearchRequest("IST", "IZM", fixedDate);
 
-        when(locationRepository.findByLocationCode("IST")).thenReturn(istanbul);
-        when(locationRepository.findByLocationCode("IZM")).thenReturn(izmir);
-        when(transportationRepository.findByOriginLocation(any())).thenReturn(Collections.emptyList());
+        givenNetwork();
 
         List<List<Transportation>> routes = routeService.findValidRoutes(request);
 
@@ -135,9 +158,7 @@ class RouteServiceTest {
         Transportation subway = createTransport(istanbul, ankara, Transportation.TransportationType.SUBWAY,
                 weekdaysOnly());
 
-        when(locationRepository.findByLocationCode("IST")).thenReturn(istanbul);
-        when(locationRepository.findByLocationCode("ANK")).thenReturn(ankara);
-        when(transportationRepository.findByOriginLocation(istanbul)).thenReturn(List.of(flight, subway));
+        givenNetwork(flight, subway);
 
         List<List<Transportation>> routes = routeService.findValidRoutes(request);
 
@@ -153,10 +174,7 @@ class RouteServiceTest {
         Transportation flight1 = createTransport(istanbul, ankara, Transportation.TransportationType.FLIGHT, allDays());
         Transportation flight2 = createTransport(ankara, izmir, Transportation.TransportationType.FLIGHT, allDays());
 
-        when(locationRepository.findByLocationCode("IST")).thenReturn(istanbul);
-        when(locationRepository.findByLocationCode("IZM")).thenReturn(izmir);
-        when(transportationRepository.findByOriginLocation(istanbul)).thenReturn(List.of(flight1));
-        when(transportationRepository.findByOriginLocation(ankara)).thenReturn(List.of(flight2));
+        givenNetwork(flight1, flight2);
 
         List<List<Transportation>> routes = routeService.findValidRoutes(request);
 
@@ -171,10 +189,7 @@ class RouteServiceTest {
         Transportation back = createTransport(ankara, istanbul, Transportation.TransportationType.BUS, allDays());
         Transportation bus = createTransport(ankara, izmir, Transportation.TransportationType.BUS, allDays());
 
-        when(locationRepository.findByLocationCode("IST")).thenReturn(istanbul);
-        when(locationRepository.findByLocationCode("IZM")).thenReturn(izmir);
-        when(transportationRepository.findByOriginLocation(istanbul)).thenReturn(List.of(flight));
-        when(transportationRepository.findByOriginLocation(ankara)).thenReturn(List.of(back, bus));
+        givenNetwork(flight, back, bus);
 
         List<List<Transportation>> routes = routeService.findValidRoutes(request);
 
@@ -196,12 +211,7 @@ class RouteServiceTest {
 
         RouteSearchRequest request = new RouteSearchRequest("IST", "E", fixedDate);
 
-        when(locationRepository.findByLocationCode("IST")).thenReturn(istanbul);
-        when(locationRepository.findByLocationCode("E")).thenReturn(e);
-        when(transportationRepository.findByOriginLocation(istanbul)).thenReturn(List.of(t1));
-        when(transportationRepository.findByOriginLocation(b)).thenReturn(List.of(t2));
-        when(transportationRepository.findByOriginLocation(c)).thenReturn(List.of(t3));
-        when(transportationRepository.findByOriginLocation(d)).thenReturn(List.of(t4));
+        givenNetwork(t1, t2, t3, t4);
 
         List<List<Transportation>> routes = routeService.findValidRoutes(request);
 
@@ -218,11 +228,7 @@ class RouteServiceTest {
 
         RouteSearchRequest request = new RouteSearchRequest("IST", "IZM", fixedDate);
 
-        when(locationRepository.findByLocationCode("IST")).thenReturn(istanbul);
-        when(locationRepository.findByLocationCode("IZM")).thenReturn(izmir);
-        when(transportationRepository.findByOriginLocation(istanbul)).thenReturn(List.of(bus1));
-        when(transportationRepository.findByOriginLocation(b)).thenReturn(List.of(bus2));
-        when(transportationRepository.findByOriginLocation(ankara)).thenReturn(List.of(flight));
+        givenNetwork(bus1, bus2, flight);
 
         List<List<Transportation>> routes = routeService.findValidRoutes(request);
 
@@ -236,16 +242,133 @@ class RouteServiceTest {
 
         RouteSearchRequest request = new RouteSearchRequest("IST", "IZM", fixedDate);
 
-        when(locationRepository.findByLocationCode("IST")).thenReturn(istanbul);
-        when(locationRepository.findByLocationCode("IZM")).thenReturn(izmir);
-        when(transportationRepository.findByOriginLocation(istanbul)).thenReturn(List.of(subway));
-        when(transportationRepository.findByOriginLocation(ankara)).thenReturn(List.of(bus));
+        givenNetwork(subway, bus);
 
         List<List<Transportation>> routes = routeService.findValidRoutes(request);
 
         assertTrue(routes.isEmpty());
     }
 
+    @Test
+    void shouldJoinGroundLegsAroundFlight() {
+        Location b = createLocation(4L, "B", "B");
+
+        Transportation bus = createTransport(istanbul, b, Transportation.TransportationType.BUS, allDays());
+        Transportation flight = createTransport(b, ankara, Transportation.TransportationType.FLIGHT, allDays());
+        Transportation uber = createTransport(ankara, izmir, Transportation.TransportationType.UBER, allDays());
+        Transportation directFlight = createTransport(istanbul, izmir, Transportation.TransportationType.FLIGHT, allDays());
+        Transportation uberBack = createTransport(ankara, b, Transportation.TransportationType.UBER, allDays());
+
+        RouteSearchRequest request = new RouteSearchRequest("IST", "IZM", fixedDate);
+
+        givenNetwork(bus, flight, uber, directFlight, uberBack);
+
+        List<List<Transportation>> routes = routeService.findValidRoutes(request);
+
+        assertEquals(2, routes.size());
+        assertEquals(List.of(bus.getId(), flight.getId(), uber.getId()),
+                routes.get(0).stream().map(Transportation::getId).toList());
+        assertEquals(List.of(directFlight.getId()),
+                routes.get(1).stream().map(Transportation::getId).toList());
+    }
+
+    @Test
+    void shouldReturnFewestLegsFirst_WhenSortedAndLimited() {
+        Location b = createLocation(4L, "B", "B");
+
+        Transportation bus = createTransport(istanbul, b, Transportation.TransportationType.BUS, allDays());
+        Transportation flight = createTransport(b, ankara, Transportation.TransportationType.FLIGHT, allDays());
+        Transportation uber = createTransport(ankara, izmir, Transportation.TransportationType.UBER, allDays());
+        Transportation directFlight = createTransport(istanbul, izmir, Transportation.TransportationType.FLIGHT, allDays());
+
+        RouteSearchRequest request = new RouteSearchRequest("IST", "IZM", fixedDate);
+        request.setSort(RouteSort.legs);
+        request.setLimit(1);
+
+        givenNetwork(bus, flight, uber, directFlight);
+
+        List<List<Transportation>> routes = routeService.findValidRoutes(request);
+
+        assertEquals(1, routes.size());
+        assertEquals(List.of(directFlight.getId()),
+                routes.get(0).stream().map(Transportation::getId).toList());
+    }
+
+    @Test
+    void shouldRejectSortedStream_WhenNoLimit() {
+        RouteSearchRequest request = new RouteSearchRequest("IST", "IZM", fixedDate);
+        request.setSort(RouteSort.cost);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> routeService.streamValidRoutes(request));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertEquals("A streamed search sorted by cost requires a limit.", exception.getReason());
+    }
+
+    @Test
+    void shouldStreamWithoutParallelSearch_WhenOriginFansOut() {
+        Transportation flight = createTransport(istanbul, ankara, Transportation.TransportationType.FLIGHT, allDays());
+        Transportation bus = createTransport(ankara, izmir, Transportation.TransportationType.BUS, allDays());
+        properties.getParallel().setFanOutThreshold(1);
+        when(routeSearchForkJoinPool.getParallelism()).thenReturn(4);
+
+        givenNetwork(flight, bus);
+
+        List<List<Transportation>> routes = new ArrayList<>();
+        routeService.streamValidRoutes(new RouteSearchRequest("IST", "IZM", fixedDate)).forEach(routes::add);
+
+        assertEquals(1, routes.size());
+        verify(routeSearchForkJoinPool, never()).invoke(any());
+    }
+
+    @Test
+    void shouldShareRoutesBetweenDatesOnSameWeekday() {
+        Transportation flight = createTransport(istanbul, ankara, Transportation.TransportationType.FLIGHT, allDays());
+        Transportation subway = createTransport(istanbul, ankara, Transportation.TransportationType.SUBWAY,
+                weekdaysOnly());
+        Transportation bus = createTransport(ankara, izmir, Transportation.TransportationType.BUS, weekdaysOnly());
+
+        RouteSearchRequest request = new RouteSearchRequest("IST", "IZM", null);
+        request.setDateFrom(fixedDate);
+        request.setDateTo(fixedDate.plusDays(29));
+
+        givenNetwork(flight, subway, bus);
+
+        Map<LocalDate, List<List<Transportation>>> routes = routeService.findValidRoutesByDate(request);
+
+        assertEquals(30, routes.size());
+        assertEquals(fixedDate, routes.keySet().iterator().next());
+        routes.forEach((date, dayRoutes) -> {
+            boolean weekend = date.getDayOfWeek().getValue() > 5;
+            assertEquals(weekend ? 0 : 1, dayRoutes.size(), date.toString());
+            assertSame(routes.get(fixedDate.plusDays(date.getDayOfWeek().getValue() - 1)), dayRoutes);
+        });
+    }
+
+    @Test
+    void shouldRejectDateRange_WhenTooLongOrReversed() {
+        RouteSearchRequest request = new RouteSearchRequest("IST", "IZM", null);
+        request.setDateFrom(fixedDate);
+        request.setDateTo(fixedDate.plusDays(properties.getDateRange().getMaxDays()));
+
+        ResponseStatusException tooLong = assertThrows(ResponseStatusException.class,
+                () -> routeService.findValidRoutesByDate(request));
+        assertEquals(HttpStatus.BAD_REQUEST, tooLong.getStatusCode());
+
+        request.setDateTo(fixedDate.minusDays(1));
+        ResponseStatusException reversed = assertThrows(ResponseStatusException.class,
+                () -> routeService.findValidRoutesByDate(request));
+        assertEquals("Invalid date range: dateFrom 2024-05-13 is after dateTo 2024-05-12.", reversed.getReason());
+    }
+
+    private void givenNetwork(Transportation... transportations) {
+        RouteGraphBuilder builder = new RouteGraphBuilder();
+        locations.forEach(builder::addLocation);
+        Arrays.stream(transportations).forEach(builder::addTransportation);
+        when(routeGraphProvider.current()).thenReturn(builder.build(1L));
+    }
+
     private List<Integer> allDays() {
         return Arrays.asList(1, 2, 3, 4, 5, 6, 7);
     }
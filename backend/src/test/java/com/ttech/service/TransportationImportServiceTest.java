@@ -0,0 +1,243 @@
+package com.ttech.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ttech.config.TransportationImportProperties;
+import com.ttech.constant.ExceptionMessages;
+import com.ttech.dto.responses.TransportationImportJob;
+import com.ttech.dto.responses.TransportationImportJob.Issue;
+import com.ttech.dto.responses.TransportationImportJob.Status;
+import com.ttech.graph.RouteGraphProvider;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs imports against the migrated schema. The importer commits on its own worker thread, so the tests
+ * do not run inside a transaction and clear the tables afterwards.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = DatabaseProvider.ZONKY)
+@Import(TransportationImportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransportationImportServiceTest {
+
+    private static final String HEADER =
+            "originLocationCode,destinationLocationCode,transportationType,operatingDays,departureTime,arrivalTime\n";
+
+    @Autowired
+    private TransportationImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransportationImportProperties properties;
+
+    @MockBean
+    private RouteGraphProvider routeGraphProvider;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO locations (name, country, city, location_code) VALUES"
+                + " ('Istanbul Airport', 'Turkey', 'Istanbul', 'IST'),"
+                + " ('Sabiha Gokcen Airport', 'Turkey', 'Istanbul', 'SAW'),"
+                + " ('Esenboga Airport', 'Turkey', 'Ankara', 'ESB')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE transportation_import_keys, transportations, locations RESTART IDENTITY");
+    }
+
+    @Test
+    void shouldKeepDeparturesOfSamePairApart() throws Exception {
+        TransportationImportJob first = importCsv(HEADER
+                + "IST,SAW,FLIGHT,1 3,08:00,09:10\n"
+                + "IST,SAW,FLIGHT,1 3,18:00,19:10\n");
+        TransportationImportJob second = importCsv(HEADER
+                + "IST,SAW,FLIGHT,5,18:00,19:30\n");
+
+        assertEquals(2, first.getInserted());
+        assertEquals(0, second.getInserted());
+        assertEquals(1, second.getUpdated());
+        assertEquals(List.of("IST-SAW FLIGHT 08:00-09:10 5", "IST-SAW FLIGHT 18:00-19:30 16"), legs());
+    }
+
+    @Test
+    void shouldCountInsertsAndUpdatesOncePerKey() throws Exception {
+        importCsv(HEADER
+                + "IST,SAW,FLIGHT,1,,\n"
+                + "IST,SAW,FLIGHT,1,08:00,09:10\n"
+                + "IST,ESB,BUS,,,\n");
+        TransportationImportJob job = importCsv(HEADER
+                + "IST,SAW,FLIGHT,2,,\n"
+                + "IST,SAW,FLIGHT,4,,\n"
+                + "SAW,ESB,BUS,3,,\n"
+                + "IST,SAW,FLIGHT,,08:00,09:20\n");
+
+        assertEquals(1, job.getInserted());
+        assertEquals(2, job.getUpdated());
+        assertEquals(0, job.getInvalid());
+        assertEquals(4, job.getCommittedRows());
+        assertEquals(List.of("IST-SAW FLIGHT unscheduled 8", "IST-SAW FLIGHT 08:00-09:20 127",
+                "IST-ESB BUS unscheduled 127", "SAW-ESB BUS unscheduled 4"), legs());
+    }
+
+    @Test
+    void shouldKeepUpdatingOneRowWhereKeyRepeats() throws Exception {
+        // Parallel unscheduled legs created through the API share the key
+        jdbcTemplate.update("INSERT INTO transportations (origin_location_id, destination_location_id,"
+                + " transportation_type, operating_days, operating_days_mask)"
+                + " SELECT 1, 2, 'BUS', ARRAY[1], 1 FROM generate_series(1, 2)");
+
+        TransportationImportJob first = importCsv(HEADER + "IST,SAW,BUS,2,,\n");
+        assertEquals(0, first.getInserted());
+        assertEquals(1, first.getUpdated());
+        assertEquals(List.of("IST-SAW BUS unscheduled 2", "IST-SAW BUS unscheduled 1"), legs());
+
+        // Once its row no longer has the key, the key takes over the other leg
+        jdbcTemplate.update("UPDATE transportations SET transportation_type = 'UBER' WHERE id = 1");
+        importCsv(HEADER + "IST,SAW,BUS,3,,\n");
+        importCsv(HEADER + "IST,SAW,BUS,7,,\n");
+
+        assertEquals(List.of("IST-SAW UBER unscheduled 2", "IST-SAW BUS unscheduled 64"), legs());
+        assertEquals(List.of(2L), jdbcTemplate.queryForList(
+                "SELECT transportation_id FROM transportation_import_keys", Long.class));
+    }
+
+    @Test
+    void shouldReportInvalidRowsAndImportTheRest() throws Exception {
+        TransportationImportJob job = importCsv(HEADER
+                + "IST,SAW,TRAIN,1,,\n"
+                + "IST,XXX,BUS,1,,\n"
+                + "IST,SAW,FLIGHT,1,08:00,\n"
+                + "IST,SAW,BUS,monday,,\n"
+                + "IST,SAW,BUS,1,,\n");
+
+        assertEquals(1, job.getInserted());
+        assertEquals(4, job.getInvalid());
+        assertEquals(List.of(
+                new Issue(1, String.format(ExceptionMessages.IMPORT_INVALID_TRANSPORTATION_TYPE, "TRAIN")),
+                new Issue(2, String.format(ExceptionMessages.IMPORT_UNKNOWN_LOCATION, "XXX")),
+                new Issue(3, ExceptionMessages.INCOMPLETE_SCHEDULE),
+                new Issue(4, String.format(ExceptionMessages.IMPORT_INVALID_OPERATING_DAYS, "monday"))),
+                job.getIssues());
+        assertEquals(List.of("IST-SAW BUS unscheduled 1"), legs());
+    }
+
+    @Test
+    void shouldSkipMalformedJsonLine() throws Exception {
+        TransportationImportJob job = await(importService.start(new ByteArrayInputStream(("""
+                {"originLocationCode":"IST","destinationLocationCode":"SAW","transportationType":"FLIGHT",\
+                "operatingDays":[1],"departureTime":"08:00","arrivalTime":"09:10"}
+                {"originLocationCode":"IST","destinationLocationCode":
+                {"originLocationCode":"SAW","destinationLocationCode":"ESB","transportationType":"BUS"}
+                """).getBytes(StandardCharsets.UTF_8)), MediaType.APPLICATION_NDJSON).getId());
+
+        assertEquals(2, job.getInserted());
+        assertEquals(1, job.getInvalid());
+        assertEquals(2, job.getIssues().get(0).getRow());
+        assertEquals(List.of("IST-SAW FLIGHT 08:00-09:10 1", "SAW-ESB BUS unscheduled 127"), legs());
+    }
+
+    @Test
+    void shouldResumeAfterLastCommittedRow() throws Exception {
+        // A run that failed after committing the first chunk; its rows are not written again
+        String id = UUID.randomUUID().toString();
+        byte[] upload = (HEADER
+                + "IST,SAW,FLIGHT,1,,\n"
+                + "IST,ESB,FLIGHT,1,,\n"
+                + "SAW,ESB,BUS,1,,\n"
+                + "ESB,IST,BUS,1,,\n").getBytes(StandardCharsets.UTF_8);
+        Files.write(properties.getDirectory().resolve(id + ".upload"), upload);
+        TransportationImportJob failed = new TransportationImportJob();
+        failed.setId(id);
+        failed.setStatus(Status.FAILED);
+        failed.setContentType("text/csv");
+        failed.setBytesTotal(upload.length);
+        failed.setCommittedRows(2);
+        failed.setInserted(2);
+        failed.setCreatedAt(Instant.now());
+        objectMapper.writeValue(properties.getDirectory().resolve(id + ".json").toFile(), failed);
+
+        importService.resumeUnfinishedJobs();
+        TransportationImportJob job = await(importService.resume(id).getId());
+
+        assertEquals(4, job.getInserted());
+        assertEquals(4, job.getCommittedRows());
+        assertEquals(List.of("SAW-ESB BUS unscheduled 1", "ESB-IST BUS unscheduled 1"), legs());
+        assertFalse(Files.exists(properties.getDirectory().resolve(id + ".upload")));
+    }
+
+    private TransportationImportJob importCsv(String body) throws Exception {
+        return await(importService.start(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                MediaType.parseMediaType("text/csv")).getId());
+    }
+
+    private TransportationImportJob await(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        TransportationImportJob job = importService.getJob(id);
+        while (job.getStatus() == Status.QUEUED || job.getStatus() == Status.RUNNING) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Import " + id + " did not finish");
+            }
+            Thread.sleep(20);
+            job = importService.getJob(id);
+        }
+        assertEquals(Status.COMPLETED, job.getStatus(), job.getError());
+        return job;
+    }
+
+    // Route, type, schedule and day mask of every leg in insertion order
+    private List<String> legs() {
+        return jdbcTemplate.queryForList("SELECT o.location_code || '-' || d.location_code || ' '"
+                + " || t.transportation_type || ' ' || coalesce(to_char(t.departure_time, 'HH24:MI') || '-'"
+                + " || to_char(t.arrival_time, 'HH24:MI'), 'unscheduled') || ' ' || t.operating_days_mask"
+                + " FROM transportations t JOIN locations o ON o.id = t.origin_location_id"
+                + " JOIN locations d ON d.id = t.destination_location_id ORDER BY t.id", String.class);
+    }
+
+    @TestConfiguration
+    static class ImportConfiguration {
+
+        @Bean
+        @Primary
+        TransportationImportProperties testTransportationImportProperties() throws IOException {
+            TransportationImportProperties properties = new TransportationImportProperties();
+            properties.setDirectory(Files.createTempDirectory("transportation-imports"));
+            properties.setChunkSize(2);
+            return properties;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.ttech.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ttech.benchmarks.NetworkGenerator.Network;
+import com.ttech.benchmarks.NetworkGenerator.Topology;
+import com.ttech.dto.requests.RouteSearchRequest;
+import com.ttech.dto.responses.ApiResponse;
+import com.ttech.dto.responses.CompactRouteResponse;
+import com.ttech.model.Transportation;
+import com.ttech.service.RouteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of a route search {@link ApiResponse} in both the full and the compact view,
+ * using an {@link ObjectMapper} configured the way Spring Boot configures the application's one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"HUB_AND_SPOKE", "AIRPORTS"})
+    public Topology topology;
+
+    private ObjectMapper objectMapper;
+    private List<List<Transportation>> routes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new Jackson2ObjectMapperBuilder().build();
+        Network network = NetworkGenerator.generate(topology, 2000, 42L);
+        RouteService routeService = RouteSearchBenchmark.routeService(network, false);
+
+        // Serialize the largest result among the searches between the first hundred locations, on a fixed
+        // date so the operating days do not change the chosen routes from one run to the next
+        LocalDate monday = LocalDate.of(2025, 1, 6);
+        List<String> codes = network.locationCodes().subList(0, 100);
+        routes = List.of();
+        for (String origin : codes) {
+            for (String destination : codes) {
+                List<List<Transportation>> found =
+                        routeService.findValidRoutes(new RouteSearchRequest(origin, destination, monday));
+                if (found.size() > routes.size()) {
+                    routes = found;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] full() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(ApiResponse.success(routes));
+    }
+
+    @Benchmark
+    public byte[] compact() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(ApiResponse.success(CompactRouteResponse.from(routes)));
+    }
+}
@@ -0,0 +1,191 @@
+package com.ttech.benchmarks;
+
+import com.ttech.AviationRoutePlannerApplication;
+import com.ttech.benchmarks.NetworkGenerator.Network;
+import com.ttech.benchmarks.NetworkGenerator.Topology;
+import com.ttech.graph.RouteGraphProvider;
+import com.ttech.model.Transportation;
+import com.ttech.repository.LocationRepository;
+import com.ttech.repository.TransportationRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop HTTP load test of the running application, once on Tomcat's platform-thread pool and once
+ * with {@code spring.threads.virtual.enabled}. Each mode gets its own embedded database seeded with the
+ * same generated network. {@code concurrency} clients send an even mix of transportation listings
+ * (database bound) and route searches (graph bound), and the throughput and latency of both runs are
+ * printed side by side.
+ * <pre>
+ * java -cp target/benchmarks.jar com.ttech.benchmarks.LoadTest [concurrency] [requests] [size]
+ * </pre>
+ */
+public final class LoadTest {
+
+    private static final int REQUEST_COUNT = 1024;
+    private static final LocalDate MONDAY = LocalDate.of(2025, 1, 6);
+
+    private record Result(String mode, double throughput, long[] latencies, int errors) {
+
+        double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException, SQLException, InterruptedException {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+
+        List<Result> results = new ArrayList<>();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            for (boolean virtual : new boolean[]{false, true}) {
+                results.add(run(postgres, virtual, concurrency, requests, size));
+            }
+        }
+
+        System.out.printf("%n%d clients, %d requests, %d locations%n", concurrency, requests, size);
+        System.out.printf("%-10s %12s %10s %10s %10s %10s %8s%n",
+                "mode", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors");
+        for (Result result : results) {
+            System.out.printf("%-10s %12.1f %10.2f %10.2f %10.2f %10.2f %8d%n", result.mode(),
+                    result.throughput(), result.percentileMillis(50), result.percentileMillis(95),
+                    result.percentileMillis(99), result.percentileMillis(100), result.errors());
+        }
+    }
+
+    private static Result run(EmbeddedPostgres postgres, boolean virtual, int concurrency, int requests, int size)
+            throws SQLException, InterruptedException {
+        String mode = virtual ? "virtual" : "platform";
+        String database = "load_" + mode;
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + database);
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AviationRoutePlannerApplication.class)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", database),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=500",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--server.port=0")) {
+            Network network = NetworkGenerator.generate(Topology.AIRPORTS, size, 42L);
+            seed(context, network);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            URI[] uris = uris(baseUrl, network);
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .executor(clients)
+                        .build();
+                // Warms up the JIT, the connection pools and the caches before anything is measured
+                drive(client, uris, concurrency, Math.max(requests / 5, concurrency));
+                long[] latencies = new long[requests];
+                long start = System.nanoTime();
+                int errors = drive(client, uris, concurrency, requests, latencies);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                Arrays.sort(latencies);
+                return new Result(mode, requests / seconds, latencies, errors);
+            }
+        }
+    }
+
+    private static int drive(HttpClient client, URI[] uris, int concurrency, int requests)
+            throws InterruptedException {
+        return drive(client, uris, concurrency, requests, new long[requests]);
+    }
+
+    // Each client sends its next request as soon as the previous one is answered
+    private static int drive(HttpClient client, URI[] uris, int concurrency, int requests,
+                             long[] latencies) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int n = next.getAndIncrement(); n < requests; n = next.getAndIncrement()) {
+                    HttpRequest request = HttpRequest.newBuilder(uris[n % uris.length])
+                            .timeout(Duration.ofMinutes(1))
+                            .GET()
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    latencies[n] = System.nanoTime() - start;
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return errors.get();
+    }
+
+    private static URI[] uris(String baseUrl, Network network) {
+        Random random = new Random(7L);
+        List<Transportation> legs = network.transportations();
+        List<String> codes = network.locationCodes();
+        URI[] uris = new URI[REQUEST_COUNT];
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            LocalDate date = MONDAY.plusDays(random.nextInt(7));
+            if (i % 2 == 0) {
+                Transportation leg = legs.get(random.nextInt(legs.size()));
+                uris[i] = URI.create(baseUrl + "/api/transportations?size=20&originLocationCode="
+                        + leg.getOriginLocation().getLocationCode() + "&date=" + date);
+            } else {
+                int origin = random.nextInt(codes.size());
+                int destination = (origin + 1 + random.nextInt(codes.size() - 1)) % codes.size();
+                uris[i] = URI.create(baseUrl + "/api/routes/search?limit=10"
+                        + "&originLocationCode=" + codes.get(origin)
+                        + "&destinationLocationCode=" + codes.get(destination)
+                        + "&date=" + date);
+            }
+        }
+        return uris;
+    }
+
+    private static void seed(ConfigurableApplicationContext context, Network network) {
+        // The generated ids only matter for in-memory graphs; let the database assign its own
+        network.locations().forEach(location -> location.setId(null));
+        network.transportations().forEach(transportation -> transportation.setId(null));
+        context.getBean(LocationRepository.class).saveAll(network.locations());
+        context.getBean(TransportationRepository.class).saveAll(network.transportations());
+        // The repositories bypass the services, so the graph has not seen any of it yet
+        context.getBean(RouteGraphProvider.class).reload();
+    }
+}
@@ -0,0 +1,182 @@
+package com.ttech.benchmarks;
+
+import com.ttech.graph.RouteGraph;
+import com.ttech.graph.RouteGraphBuilder;
+import com.ttech.model.Location;
+import com.ttech.model.OperatingDays;
+import com.ttech.model.Transportation;
+import com.ttech.model.Transportation.TransportationType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds synthetic transportation networks of a given size. The same topology, size and seed always
+ * produce the same network, so benchmark runs stay comparable between releases.
+ */
+public final class NetworkGenerator {
+
+    private static final TransportationType[] GROUND_TYPES = {
+            TransportationType.BUS, TransportationType.SUBWAY, TransportationType.UBER
+    };
+
+    public enum Topology {
+        /** A few fully connected hubs, every other airport flying to one or two of them. */
+        HUB_AND_SPOKE,
+        /** Uniformly random edges of any type. */
+        RANDOM,
+        /** Cities with one airport and a handful of ground stations; flight degrees follow a power law. */
+        AIRPORTS
+    }
+
+    public record Network(List<Location> locations, List<Transportation> transportations) {
+
+        public RouteGraph toGraph(long version) {
+            RouteGraphBuilder builder = new RouteGraphBuilder();
+            locations.forEach(builder::addLocation);
+            transportations.forEach(builder::addTransportation);
+            return builder.build(version);
+        }
+
+        public List<String> locationCodes() {
+            return locations.stream().map(Location::getLocationCode).toList();
+        }
+    }
+
+    private final Random random;
+    private final List<Location> locations = new ArrayList<>();
+    private final List<Transportation> transportations = new ArrayList<>();
+
+    private NetworkGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates a network of roughly {@code size} locations.
+     */
+    public static Network generate(Topology topology, int size, long seed) {
+        NetworkGenerator generator = new NetworkGenerator(seed);
+        switch (topology) {
+            case HUB_AND_SPOKE -> generator.hubAndSpoke(size);
+            case RANDOM -> generator.random(size);
+            case AIRPORTS -> generator.airports(size);
+        }
+        return new Network(List.copyOf(generator.locations), List.copyOf(generator.transportations));
+    }
+
+    private void hubAndSpoke(int size) {
+        int hubCount = Math.max(2, size / 50);
+        List<Location> hubs = new ArrayList<>();
+        for (int i = 0; i < hubCount; i++) {
+            hubs.add(location("H", i));
+        }
+        for (Location from : hubs) {
+            for (Location to : hubs) {
+                if (from != to) {
+                    connect(from, to, TransportationType.FLIGHT);
+                }
+            }
+        }
+        for (int i = hubCount; i < size; i++) {
+            Location spoke = location("S", i);
+            if (i % 3 == 0) {
+                // Ground station feeding the nearest hub rather than an airport of its own
+                Location hub = hubs.get(random.nextInt(hubCount));
+                connect(spoke, hub, groundType());
+                connect(hub, spoke, groundType());
+                continue;
+            }
+            int links = 1 + random.nextInt(2);
+            for (int link = 0; link < links; link++) {
+                Location hub = hubs.get(random.nextInt(hubCount));
+                connect(spoke, hub, TransportationType.FLIGHT);
+                connect(hub, spoke, TransportationType.FLIGHT);
+            }
+        }
+    }
+
+    private void random(int size) {
+        for (int i = 0; i < size; i++) {
+            location("R", i);
+        }
+        int edgeCount = size * 4;
+        for (int i = 0; i < edgeCount; i++) {
+            Location from = locations.get(random.nextInt(size));
+            Location to = locations.get(random.nextInt(size));
+            if (from != to) {
+                connect(from, to, random.nextInt(10) < 3 ? TransportationType.FLIGHT : groundType());
+            }
+        }
+    }
+
+    private void airports(int size) {
+        int stationsPerCity = 4;
+        int cityCount = Math.max(2, size / (stationsPerCity + 1));
+        List<Location> airports = new ArrayList<>(cityCount);
+        List<Location> flightEnds = new ArrayList<>();
+        for (int city = 0; city < cityCount; city++) {
+            Location airport = location("A", city);
+            airports.add(airport);
+            for (int station = 0; station < stationsPerCity; station++) {
+                Location stop = location("C" + city + "S", station);
+                connect(stop, airport, groundType());
+                connect(airport, stop, groundType());
+                if (station > 0 && random.nextBoolean()) {
+                    Location previous = locations.get(locations.size() - 2);
+                    connect(previous, stop, groundType());
+                }
+            }
+
+            // Preferential attachment: airports that already have many flights attract more
+            int flights = Math.min(city, 3);
+            for (int flight = 0; flight < flights; flight++) {
+                Location other = flightEnds.get(random.nextInt(flightEnds.size()));
+                if (other == airport) {
+                    continue;
+                }
+                connect(airport, other, TransportationType.FLIGHT);
+                connect(other, airport, TransportationType.FLIGHT);
+                flightEnds.add(other);
+                flightEnds.add(airport);
+            }
+            flightEnds.add(airport);
+        }
+    }
+
+    private Location location(String prefix, int index) {
+        Location location = new Location();
+        location.setId((long) locations.size() + 1);
+        location.setLocationCode(prefix + index);
+        location.setName("Location " + prefix + index);
+        location.setCity("City " + prefix + index);
+        location.setCountry("Country " + random.nextInt(50));
+        locations.add(location);
+        return location;
+    }
+
+    private void connect(Location origin, Location destination, TransportationType type) {
+        Transportation transportation = new Transportation();
+        transportation.setId((long) transportations.size() + 1);
+        transportation.setOriginLocation(origin);
+        transportation.setDestinationLocation(destination);
+        transportation.setTransportationType(type);
+        transportation.setOperatingDays(operatingDays());
+        transportations.add(transportation);
+    }
+
+    private TransportationType groundType() {
+        return GROUND_TYPES[random.nextInt(GROUND_TYPES.length)];
+    }
+
+    private List<Integer> operatingDays() {
+        if (random.nextInt(10) < 6) {
+            return OperatingDays.toList(OperatingDays.ALL_DAYS);
+        }
+        int mask = 0;
+        while (Integer.bitCount(mask) < 3) {
+            mask |= 1 << random.nextInt(7);
+        }
+        return OperatingDays.toList(mask);
+    }
+}
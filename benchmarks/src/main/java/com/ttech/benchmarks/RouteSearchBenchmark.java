@@ -0,0 +1,137 @@
+package com.ttech.benchmarks;
+
+import com.ttech.benchmarks.NetworkGenerator.Network;
+import com.ttech.benchmarks.NetworkGenerator.Topology;
+import com.ttech.cache.RouteSearchCache;
+import com.ttech.config.RouteSearchProperties;
+import com.ttech.dto.requests.RouteSearchRequest;
+import com.ttech.graph.RouteGraph;
+import com.ttech.graph.RouteGraphProvider;
+import com.ttech.graph.RouteGraphUpdatedEvent;
+import com.ttech.graph.RouteIndexProvider;
+import com.ttech.metrics.RouteSearchMetrics;
+import com.ttech.model.Transportation;
+import com.ttech.service.RouteService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RouteService#findValidRoutes(RouteSearchRequest)} against an in-memory graph, cycling through
+ * a fixed set of random origin/destination/date requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteSearchBenchmark {
+
+    private static final int REQUEST_COUNT = 1024;
+
+    @Param({"HUB_AND_SPOKE", "RANDOM", "AIRPORTS"})
+    public Topology topology;
+
+    @Param({"500", "5000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private RouteService routeService;
+    private RouteSearchRequest[] requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Network network = NetworkGenerator.generate(topology, size, 42L);
+        routeService = routeService(network, cached, indexed);
+
+        List<String> codes = network.locationCodes();
+        Random random = new Random(7L);
+        LocalDate monday = LocalDate.of(2025, 1, 6);
+        requests = new RouteSearchRequest[REQUEST_COUNT];
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            String origin = codes.get(random.nextInt(codes.size()));
+            String destination = codes.get(random.nextInt(codes.size()));
+            requests[i] = new RouteSearchRequest(origin, destination, monday.plusDays(random.nextInt(7)));
+        }
+    }
+
+    @Benchmark
+    public List<List<Transportation>> findValidRoutes() {
+        RouteSearchRequest request = requests[next];
+        next = (next + 1) & (REQUEST_COUNT - 1);
+        return routeService.findValidRoutes(request);
+    }
+
+    /**
+     * Wires a {@link RouteService} around the given network without a Spring context or database.
+     */
+    static RouteService routeService(Network network, boolean cached) {
+        return routeService(network, cached, false);
+    }
+
+    /**
+     * Like {@link #routeService(Network, boolean)}; with {@code indexed} it returns once the route index of
+     * the network is built.
+     */
+    static RouteService routeService(Network network, boolean cached, boolean indexed) {
+        RouteSearchProperties properties = new RouteSearchProperties();
+        if (!cached) {
+            properties.getCache().setMaximumWeight(0);
+        }
+        properties.getIndex().setEnabled(indexed);
+        RouteIndexProvider indexProvider = new RouteIndexProvider(properties, ForkJoinPool.commonPool(),
+                new SimpleMeterRegistry());
+        RouteGraphProvider provider = new RouteGraphProvider(null, null, properties, event -> {
+            if (event instanceof RouteGraphUpdatedEvent updated) {
+                indexProvider.onGraphUpdated(updated);
+            }
+        });
+        provider.install(network.toGraph(1L));
+        if (indexed) {
+            awaitIndex(indexProvider, provider.current());
+        }
+
+        RouteSearchCache cache = new RouteSearchCache(properties, new SimpleMeterRegistry());
+        return new RouteService(provider, cache, indexProvider, new ThreadPoolTaskExecutor(),
+                ForkJoinPool.commonPool(), properties, new RouteSearchMetrics(new SimpleMeterRegistry()));
+    }
+
+    private static void awaitIndex(RouteIndexProvider indexProvider, RouteGraph graph) {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(5);
+        while (indexProvider.current(graph) == null) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("The route index was not built, see the log for the reason");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
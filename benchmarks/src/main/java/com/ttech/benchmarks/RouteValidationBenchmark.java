@@ -0,0 +1,92 @@
+package com.ttech.benchmarks;
+
+import com.ttech.benchmarks.NetworkGenerator.Network;
+import com.ttech.benchmarks.NetworkGenerator.Topology;
+import com.ttech.dto.requests.RouteSearchRequest;
+import com.ttech.model.Transportation;
+import com.ttech.model.Transportation.TransportationType;
+import com.ttech.service.RouteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RouteService#isValidRoute} over a mix of routes returned by real searches and shuffled,
+ * mostly invalid leg sequences built from the same transportations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteValidationBenchmark {
+
+    private static final int ROUTE_COUNT = 4096;
+
+    private RouteService routeService;
+    private List<Transportation>[] routes;
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        Network network = NetworkGenerator.generate(Topology.AIRPORTS, 2000, 42L);
+        routeService = RouteSearchBenchmark.routeService(network, false);
+
+        List<String> codes = network.locationCodes();
+        Random random = new Random(7L);
+        List<List<Transportation>> collected = new ArrayList<>();
+        for (int attempt = 0; attempt < 100_000 && collected.size() < ROUTE_COUNT / 2; attempt++) {
+            String origin = codes.get(random.nextInt(codes.size()));
+            String destination = codes.get(random.nextInt(codes.size()));
+            collected.addAll(routeService.findValidRoutes(new RouteSearchRequest(origin, destination, null)));
+        }
+        collected = new ArrayList<>(collected.subList(0, Math.min(collected.size(), ROUTE_COUNT / 2)));
+
+        List<Transportation> legs = network.transportations();
+        while (collected.size() < ROUTE_COUNT) {
+            List<Transportation> route = new ArrayList<>();
+            int length = 1 + random.nextInt(4);
+            for (int i = 0; i < length; i++) {
+                route.add(legs.get(random.nextInt(legs.size())));
+            }
+            if (random.nextBoolean()) {
+                route.set(0, firstFlight(legs, random));
+            }
+            collected.add(route);
+        }
+        Collections.shuffle(collected, random);
+        routes = collected.toArray(new List[0]);
+    }
+
+    @Benchmark
+    public boolean isValidRoute() {
+        List<Transportation> route = routes[next];
+        next = (next + 1) & (ROUTE_COUNT - 1);
+        return routeService.isValidRoute(route);
+    }
+
+    private static Transportation firstFlight(List<Transportation> legs, Random random) {
+        while (true) {
+            Transportation leg = legs.get(random.nextInt(legs.size()));
+            if (leg.getTransportationType() == TransportationType.FLIGHT) {
+                return leg;
+            }
+        }
+    }
+}
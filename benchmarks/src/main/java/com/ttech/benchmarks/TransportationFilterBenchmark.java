@@ -0,0 +1,125 @@
+package com.ttech.benchmarks;
+
+import com.ttech.AviationRoutePlannerApplication;
+import com.ttech.benchmarks.NetworkGenerator.Network;
+import com.ttech.benchmarks.NetworkGenerator.Topology;
+import com.ttech.dto.requests.TransportationFilterRequest;
+import com.ttech.model.Transportation;
+import com.ttech.repository.LocationRepository;
+import com.ttech.repository.TransportationRepository;
+import com.ttech.service.TransportationService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransportationService#getAllTransportations} against an embedded PostgreSQL seeded with a
+ * generated network, so the specification SQL, its plan and the entity fetching are all measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportationFilterBenchmark {
+
+    private static final int FILTER_COUNT = 256;
+
+    public enum Filter {
+        NONE, ORIGIN, ORIGIN_AND_DESTINATION, ORIGIN_AND_DAY
+    }
+
+    @Param({"2000"})
+    public int size;
+
+    @Param({"NONE", "ORIGIN", "ORIGIN_AND_DESTINATION", "ORIGIN_AND_DAY"})
+    public Filter filter;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private TransportationService transportationService;
+    private TransportationFilterRequest[] filters;
+    private final Pageable pageable = PageRequest.of(0, 20, Sort.by("id"));
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        context = new SpringApplicationBuilder(AviationRoutePlannerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=500");
+        transportationService = context.getBean(TransportationService.class);
+
+        Network network = NetworkGenerator.generate(Topology.AIRPORTS, size, 42L);
+        seed(network);
+
+        Random random = new Random(7L);
+        List<Transportation> legs = network.transportations();
+        LocalDate monday = LocalDate.of(2025, 1, 6);
+        filters = new TransportationFilterRequest[FILTER_COUNT];
+        for (int i = 0; i < FILTER_COUNT; i++) {
+            Transportation leg = legs.get(random.nextInt(legs.size()));
+            TransportationFilterRequest request = new TransportationFilterRequest();
+            if (filter != Filter.NONE) {
+                request.setOriginLocationCode(leg.getOriginLocation().getLocationCode());
+            }
+            if (filter == Filter.ORIGIN_AND_DESTINATION) {
+                request.setDestinationLocationCode(leg.getDestinationLocation().getLocationCode());
+            }
+            if (filter == Filter.ORIGIN_AND_DAY) {
+                request.setDate(monday.plusDays(random.nextInt(7)));
+            }
+            filters[i] = request;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public Page<Transportation> getAllTransportations() {
+        TransportationFilterRequest request = filters[next];
+        next = (next + 1) % FILTER_COUNT;
+        return transportationService.getAllTransportations(request, pageable);
+    }
+
+    private void seed(Network network) {
+        // The generated ids only matter for in-memory graphs; let the database assign its own
+        network.locations().forEach(location -> location.setId(null));
+        network.transportations().forEach(transportation -> transportation.setId(null));
+        context.getBean(LocationRepository.class).saveAll(network.locations());
+        context.getBean(TransportationRepository.class).saveAll(network.transportations());
+    }
+}